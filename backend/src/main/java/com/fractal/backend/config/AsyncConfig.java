@@ -0,0 +1,14 @@
+package com.fractal.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Turns on @Async methods (EmailService). They run on Boot's
+ * applicationTaskExecutor: a small pool of platform threads by default, one
+ * virtual thread per task when spring.threads.virtual.enabled is true.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
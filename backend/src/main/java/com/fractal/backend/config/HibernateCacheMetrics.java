@@ -0,0 +1,65 @@
+package com.fractal.backend.config;
+
+import java.util.function.ToDoubleFunction;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Publishes Hibernate second-level cache statistics per region
+ * (hibernate.cache.region.* tagged with region=users, workspaces, ...).
+ * Reads the live counters on each scrape; nothing is copied or reset.
+ */
+@Component
+public class HibernateCacheMetrics implements MeterBinder {
+
+    private final Statistics statistics;
+
+    public HibernateCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            counter(registry, region, "hits", CacheRegionStatistics::getHitCount);
+            counter(registry, region, "misses", CacheRegionStatistics::getMissCount);
+            counter(registry, region, "puts", CacheRegionStatistics::getPutCount);
+
+            Gauge.builder("hibernate.cache.region.hit.ratio", statistics, s -> hitRatio(s, region))
+                    .tag("region", region)
+                    .description("Second-level cache hits / (hits + misses) since startup")
+                    .register(registry);
+            Gauge.builder("hibernate.cache.region.size", statistics,
+                    s -> regionValue(s, region, CacheRegionStatistics::getElementCountInMemory))
+                    .tag("region", region)
+                    .register(registry);
+        }
+    }
+
+    private void counter(MeterRegistry registry, String region, String name,
+            ToDoubleFunction<CacheRegionStatistics> value) {
+        FunctionCounter.builder("hibernate.cache.region." + name, statistics, s -> regionValue(s, region, value))
+                .tag("region", region)
+                .register(registry);
+    }
+
+    private static double hitRatio(Statistics s, String region) {
+        double hits = regionValue(s, region, CacheRegionStatistics::getHitCount);
+        double misses = regionValue(s, region, CacheRegionStatistics::getMissCount);
+        return hits + misses == 0 ? 0 : hits / (hits + misses);
+    }
+
+    private static double regionValue(Statistics s, String region, ToDoubleFunction<CacheRegionStatistics> value) {
+        CacheRegionStatistics regionStatistics = s.getCacheRegionStatistics(region);
+        return regionStatistics == null ? 0 : value.applyAsDouble(regionStatistics);
+    }
+}
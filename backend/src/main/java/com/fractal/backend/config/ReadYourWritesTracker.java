@@ -0,0 +1,55 @@
+package com.fractal.backend.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.fractal.backend.model.User;
+
+/**
+ * Remembers who committed a write recently. Their read-only work is kept on the
+ * primary until the window passes, so they never read a replica that hasn't
+ * replayed their own change yet.
+ */
+public class ReadYourWritesTracker {
+
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private final long windowNanos;
+    private final Map<UUID, Long> lastWrite = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void recordWrite(UUID userId) {
+        lastWrite.put(userId, System.nanoTime());
+        if (lastWrite.size() > PURGE_THRESHOLD) {
+            long now = System.nanoTime();
+            lastWrite.values().removeIf(t -> now - t > windowNanos);
+        }
+    }
+
+    public boolean isSticky(UUID userId) {
+        Long writtenAt = lastWrite.get(userId);
+        return writtenAt != null && System.nanoTime() - writtenAt <= windowNanos;
+    }
+
+    // Whether the authenticated user's read-only work goes to the primary right now
+    public boolean isCurrentUserSticky() {
+        UUID userId = currentUserId();
+        return userId != null && isSticky(userId);
+    }
+
+    static UUID currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return user.getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,99 @@
+package com.fractal.backend.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Polls each replica for its replay lag and keeps the list of replicas that
+ * are reachable and within the allowed lag. Replicas start out unhealthy
+ * until the first check passes, so reads go to the primary while booting.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements DisposableBean {
+
+    // Seconds behind, 0 when everything received is replayed. NULL when the lag can't be
+    // known: not a standby, no WAL receiver (stopped or died, so receive and replay sit at
+    // the same LSN while the primary moves on), or nothing replayed yet
+    private static final String LAG_SQL = """
+                SELECT CASE
+                    WHEN NOT pg_is_in_recovery() OR NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver) THEN NULL
+                    WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                    ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())
+                END
+            """;
+
+    private final Map<String, DataSource> replicas;
+    private final double maxLagSeconds;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile List<String> healthy = List.of();
+
+    public ReplicaLagMonitor(Map<String, DataSource> replicas, Duration maxLag, Duration interval) {
+        this.replicas = replicas;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-lag-monitor");
+            t.setDaemon(true);
+            return t;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::check, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public List<String> healthyReplicas() {
+        return healthy;
+    }
+
+    public Map<String, DataSource> replicaDataSources() {
+        return replicas;
+    }
+
+    void check() {
+        List<String> ok = new ArrayList<>();
+        replicas.forEach((key, dataSource) -> {
+            try (Connection c = dataSource.getConnection();
+                    Statement s = c.createStatement();
+                    ResultSet rs = s.executeQuery(LAG_SQL)) {
+                // Unknown lag counts as too much
+                Double lag = rs.next() ? rs.getObject(1, Double.class) : null;
+                if (lag == null) {
+                    log.warn("Replica {} has no WAL receiver or is not a standby; routing reads to primary", key);
+                } else if (lag <= maxLagSeconds) {
+                    ok.add(key);
+                } else {
+                    log.warn("Replica {} is {}s behind (max {}s); routing reads to primary", key, lag, maxLagSeconds);
+                }
+            } catch (Exception e) {
+                log.warn("Replica {} is unreachable: {}", key, e.getMessage());
+            }
+        });
+        healthy = List.copyOf(ok);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        for (DataSource dataSource : replicas.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close replica pool: {}", e.getMessage());
+                }
+            }
+        }
+    }
+}
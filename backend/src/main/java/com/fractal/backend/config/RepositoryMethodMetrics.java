@@ -0,0 +1,87 @@
+package com.fractal.backend.config;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every call on a Spring Data repository proxy (repository.invocations,
+ * tagged repository/method/outcome) and remembers the outermost call on the
+ * thread so SqlMetricsListener can attribute statements to it.
+ *
+ * Timers are registered once per method and outcome and kept here, so a call
+ * costs a map lookup rather than a builder and a registry lookup.
+ */
+public class RepositoryMethodMetrics implements MethodInterceptor {
+
+    static final String NONE = "none";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final String repository;
+    private final Map<Method, Timer> successTimers = new ConcurrentHashMap<>();
+    private final Map<Method, Timer> errorTimers = new ConcurrentHashMap<>();
+
+    public RepositoryMethodMetrics(ObjectProvider<MeterRegistry> meterRegistry, Class<?> repositoryInterface) {
+        this.meterRegistry = meterRegistry;
+        this.repository = repositoryInterface.getSimpleName();
+    }
+
+    /** "UserRepository.findByEmail" while inside a repository call, otherwise "none". */
+    static String currentMethod() {
+        String method = CURRENT.get();
+        return method == null ? NONE : method;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        // Default methods re-enter the proxy; keep the caller's name
+        boolean outermost = CURRENT.get() == null;
+        if (outermost) {
+            CURRENT.set(repository + "." + method.getName());
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = invocation.proceed();
+            success = true;
+            return result;
+        } finally {
+            if (outermost) {
+                CURRENT.remove();
+            }
+            Timer timer = success ? timer(successTimers, method, "SUCCESS") : timer(errorTimers, method, "ERROR");
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    // Null until a MeterRegistry exists; nothing is cached before then
+    private Timer timer(Map<Method, Timer> timers, Method method, String outcome) {
+        Timer timer = timers.get(method);
+        if (timer != null) {
+            return timer;
+        }
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return null;
+        }
+        return timers.computeIfAbsent(method, m -> Timer.builder("repository.invocations")
+                .tag("repository", repository)
+                .tag("method", m.getName())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+}
@@ -0,0 +1,15 @@
+package com.fractal.backend.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on @Scheduled methods (ArchiveService.archiveExpired). Off in tests and
+ * wherever app.archive.enabled is false.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true")
+public class SchedulingConfig {
+}
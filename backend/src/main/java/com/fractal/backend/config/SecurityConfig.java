@@ -3,6 +3,7 @@ package com.fractal.backend.config;
 import java.util.Arrays;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -18,6 +19,8 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import com.fractal.backend.security.CustomOAuth2AuthenticationSuccessHandler;
 import com.fractal.backend.security.JwtAuthenticationFilter;
+import com.fractal.backend.security.RateLimitFilter;
+import com.fractal.backend.security.RateLimiter;
 
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -29,6 +32,10 @@ public class SecurityConfig {
 
         private final CustomOAuth2AuthenticationSuccessHandler customOAuth2AuthenticationSuccessHandler;
         private final JwtAuthenticationFilter jwtAuthenticationFilter;
+        private final RateLimiter rateLimiter;
+
+        @Value("${app.frontend.url}")
+        private String frontendUrl;
 
         @Bean
         @Order(1)
@@ -71,22 +78,29 @@ public class SecurityConfig {
                                                 .requestMatchers("/api/health").permitAll()
                                                 .requestMatchers(HttpMethod.OPTIONS, "/api/**").permitAll()
                                                 .anyRequest().authenticated())
-                                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                                // Needs the user JwtAuthenticationFilter just resolved
+                                .addFilterAfter(new RateLimitFilter(rateLimiter), JwtAuthenticationFilter.class);
 
                 return http.build();
         }
 
+        // The only CORS configuration for /api/**: Spring MVC has no mappings of its own, so
+        // preflights and error responses (401, 429) get the same headers as normal ones
         @Bean
         public CorsConfigurationSource corsConfigurationSource() {
                 CorsConfiguration configuration = new CorsConfiguration();
                 configuration.setAllowedOriginPatterns(List.of(
+                                frontendUrl,
                                 "http://localhost:3000",
                                 "http://lvh.me:3000",
                                 "http://*.lvh.me:3000",
                                 "https://app.rishabhxchoudhary.com",
                                 "https://*.app.rishabhxchoudhary.com"));
-                configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+                configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
                 configuration.setAllowedHeaders(List.of("*"));
+                // ETag for If-Match, Retry-After on 429 responses
+                configuration.setExposedHeaders(List.of("ETag", "Retry-After"));
                 configuration.setAllowCredentials(true);
                 UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
                 source.registerCorsConfiguration("/api/**", configuration);
@@ -0,0 +1,52 @@
+package com.fractal.backend.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Database the current thread works against when sharding is on: a shard key
+ * from ShardDirectory, or null for the global database. Set per request by
+ * ShardRoutingInterceptor and read by ShardRoutingDataSource when a transaction
+ * fetches its connection, so it has to be in place before the transaction's
+ * first statement.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static void set(String database) {
+        if (database == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(database);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    // Runs work against another database, then puts the previous one back
+    public static <T> T callOn(String database, Supplier<T> work) {
+        String previous = CURRENT.get();
+        set(database);
+        try {
+            return work.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    public static void runOn(String database, Runnable work) {
+        callOn(database, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
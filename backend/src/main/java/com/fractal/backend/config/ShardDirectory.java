@@ -0,0 +1,257 @@
+package com.fractal.backend.config;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fractal.backend.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Where each workspace lives when sharding is on. The directory table
+ * (workspace_shards, V12) sits in the global database next to the users; a shard
+ * holds whole workspaces (members, invitations, projects, closure and membership
+ * rows), so one request never needs more than one database.
+ *
+ * Workspaces created before sharding was enabled have no directory row and stay
+ * in the global database. Projects of sharded workspaces are listed too
+ * (project_shards, V13), because project routes don't name their workspace.
+ * Placements never change, so found entries are cached (bounded, least useful
+ * entries evicted first); misses are not, as the workspace or project may still
+ * be committing.
+ *
+ * Users are owned by the global database and copied to every shard, because
+ * shard tables reference them by foreign key.
+ */
+public class ShardDirectory {
+
+    private static final int CACHE_LIMIT = 100_000;
+    private static final int USER_BATCH_SIZE = 1000;
+    private static final int PROJECT_BATCH_SIZE = 1000;
+    private static final UUID MIN_UUID = new UUID(0, 0);
+
+    private static final String INSERT_PROJECT = """
+                INSERT INTO project_shards (project_id, shard_id) VALUES (?, ?)
+                ON CONFLICT (project_id) DO NOTHING
+            """;
+
+    private static final String UPSERT_USER = """
+                INSERT INTO users (id, email, full_name, avatar_url, is_active, created_at, updated_at)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                ON CONFLICT (id) DO UPDATE
+                SET email = EXCLUDED.email, full_name = EXCLUDED.full_name, avatar_url = EXCLUDED.avatar_url,
+                    is_active = EXCLUDED.is_active, updated_at = EXCLUDED.updated_at
+            """;
+
+    private final JdbcTemplate global;
+    private final Map<String, DataSource> shardDataSources;
+    private final Map<String, JdbcTemplate> shards = new LinkedHashMap<>();
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final Cache<UUID, String> workspaceShards = Caffeine.newBuilder().maximumSize(CACHE_LIMIT).build();
+    private final Cache<UUID, String> projectShards = Caffeine.newBuilder().maximumSize(CACHE_LIMIT).build();
+
+    public ShardDirectory(DataSource globalDataSource, Map<String, DataSource> shardDataSources,
+            ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.global = new JdbcTemplate(globalDataSource);
+        this.shardDataSources = Collections.unmodifiableMap(new LinkedHashMap<>(shardDataSources));
+        this.transactionManager = transactionManager;
+        shardDataSources.forEach((key, dataSource) -> shards.put(key, new JdbcTemplate(dataSource)));
+    }
+
+    public Map<String, DataSource> shardDataSources() {
+        return shardDataSources;
+    }
+
+    // The global database first, then every shard
+    public List<String> databases() {
+        List<String> databases = new ArrayList<>();
+        databases.add(ShardRoutingDataSource.GLOBAL);
+        databases.addAll(shards.keySet());
+        return databases;
+    }
+
+    // --- Lookups ---
+
+    public String shardOfWorkspace(UUID workspaceId) {
+        String cached = workspaceShards.getIfPresent(workspaceId);
+        if (cached != null) {
+            return cached;
+        }
+        List<String> found = global.queryForList("SELECT shard_id FROM workspace_shards WHERE workspace_id = ?",
+                String.class, workspaceId);
+        if (found.isEmpty()) {
+            return ShardRoutingDataSource.GLOBAL;
+        }
+        return remember(workspaceShards, workspaceId, found.get(0));
+    }
+
+    public String shardOfProject(UUID projectId) {
+        String cached = projectShards.getIfPresent(projectId);
+        if (cached != null) {
+            return cached;
+        }
+        List<String> found = global.queryForList("SELECT shard_id FROM project_shards WHERE project_id = ?",
+                String.class, projectId);
+        if (found.isEmpty()) {
+            return ShardRoutingDataSource.GLOBAL;
+        }
+        return remember(projectShards, projectId, found.get(0));
+    }
+
+    // Invitation tokens are random, so ask each database; unknown tokens end up as a 404 on the global one
+    public String shardOfInvitation(String token) {
+        for (String database : databases()) {
+            Boolean exists = template(database).queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM workspace_invitations WHERE token = ?)", Boolean.class, token);
+            if (Boolean.TRUE.equals(exists)) {
+                return database;
+            }
+        }
+        return ShardRoutingDataSource.GLOBAL;
+    }
+
+    // --- Placement ---
+
+    // The shard holding the fewest workspaces
+    public String placeNewWorkspace() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        shards.keySet().forEach(shard -> counts.put(shard, 0L));
+        global.query("SELECT shard_id, COUNT(*) FROM workspace_shards GROUP BY shard_id", rs -> {
+            String shard = rs.getString(1);
+            if (counts.containsKey(shard)) {
+                counts.put(shard, rs.getLong(2));
+            }
+        });
+        return counts.entrySet().stream()
+                .min(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(ShardRoutingDataSource.GLOBAL);
+    }
+
+    // Records a workspace created in the current database; workspaces on the global database need no entry.
+    // Commits on its own, so a creation that rolls back only leaves an unused slug reservation behind.
+    public void register(UUID workspaceId, String slug) {
+        String database = ShardContext.current();
+        if (database == null || ShardRoutingDataSource.GLOBAL.equals(database)) {
+            return;
+        }
+        global.update("INSERT INTO workspace_shards (workspace_id, shard_id, slug) VALUES (?, ?, ?)",
+                workspaceId, database, slug);
+        remember(workspaceShards, workspaceId, database);
+    }
+
+    // Records projects created in the current database, like register does for workspaces. Archived
+    // projects keep their entry, so restoring one needs nothing here.
+    public void registerProjects(Collection<UUID> projectIds) {
+        String database = ShardContext.current();
+        if (database == null || ShardRoutingDataSource.GLOBAL.equals(database) || projectIds.isEmpty()) {
+            return;
+        }
+        global.batchUpdate(INSERT_PROJECT, projectIds.stream()
+                .map(id -> new Object[] { id, database })
+                .toList());
+        projectIds.forEach(id -> remember(projectShards, id, database));
+    }
+
+    // Lists projects each shard already holds that the directory doesn't know yet (run at startup)
+    public void registerAllProjects() {
+        shards.forEach((shard, template) -> {
+            UUID after = MIN_UUID;
+            while (true) {
+                List<UUID> ids = template.queryForList("""
+                            SELECT id FROM (
+                                SELECT id FROM projects WHERE id > ?
+                                UNION ALL
+                                SELECT id FROM projects_archive WHERE id > ?
+                            ) p ORDER BY id LIMIT ?
+                        """, UUID.class, after, after, PROJECT_BATCH_SIZE);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                global.batchUpdate(INSERT_PROJECT, ids.stream().map(id -> new Object[] { id, shard }).toList());
+                after = ids.get(ids.size() - 1);
+            }
+        });
+    }
+
+    // Slugs in use on any database: sharded ones are in the directory, the rest in the global workspaces table
+    public boolean isSlugTaken(String slug) {
+        return Boolean.TRUE.equals(global.queryForObject("""
+                    SELECT EXISTS (SELECT 1 FROM workspace_shards WHERE slug = ?)
+                        OR EXISTS (SELECT 1 FROM workspaces WHERE slug = ?)
+                """, Boolean.class, slug, slug));
+    }
+
+    public void updateSlug(UUID workspaceId, String slug) {
+        global.update("UPDATE workspace_shards SET slug = ? WHERE workspace_id = ?", slug, workspaceId);
+    }
+
+    // --- Users ---
+
+    // Called for every user insert and update (UserShardMirror)
+    public void mirrorUser(User user) {
+        Object[] row = { user.getId(), user.getEmail(), user.getFullName(), user.getAvatarUrl(), user.isActive(),
+                user.getCreatedAt(), user.getUpdatedAt() };
+        shards.values().forEach(shard -> shard.update(UPSERT_USER, row));
+    }
+
+    // Brings every shard up to date with the global users table (run at startup)
+    public void mirrorAllUsers() {
+        UUID after = MIN_UUID;
+        while (true) {
+            List<Object[]> rows = global.query("""
+                        SELECT id, email, full_name, avatar_url, is_active, created_at, updated_at
+                        FROM users WHERE id > ? ORDER BY id LIMIT ?
+                    """, (rs, i) -> new Object[] { rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3),
+                    rs.getString(4), rs.getBoolean(5), rs.getObject(6, OffsetDateTime.class),
+                    rs.getObject(7, OffsetDateTime.class) }, after, USER_BATCH_SIZE);
+            if (rows.isEmpty()) {
+                return;
+            }
+            shards.values().forEach(shard -> shard.batchUpdate(UPSERT_USER, rows));
+            after = (UUID) rows.get(rows.size() - 1)[0];
+        }
+    }
+
+    // --- Fan-out ---
+
+    // Runs a read on every database, each in its own read-only transaction, and concatenates the results
+    public <T> List<T> fromEveryDatabase(Supplier<List<T>> query) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager.getObject());
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.setReadOnly(true);
+
+        List<T> results = new ArrayList<>();
+        for (String database : databases()) {
+            List<T> rows = ShardContext.callOn(database, () -> transaction.execute(s -> query.get()));
+            if (rows != null) {
+                results.addAll(rows);
+            }
+        }
+        return results;
+    }
+
+    private JdbcTemplate template(String database) {
+        return ShardRoutingDataSource.GLOBAL.equals(database) ? global : shards.get(database);
+    }
+
+    private static String remember(Cache<UUID, String> cache, UUID id, String database) {
+        cache.put(id, database);
+        return database;
+    }
+}
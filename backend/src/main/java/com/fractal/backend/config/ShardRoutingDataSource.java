@@ -0,0 +1,27 @@
+package com.fractal.backend.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Sends each connection to the database named by ShardContext, the global
+ * database when none is set. Must sit behind a LazyConnectionDataSourceProxy so
+ * the connection is fetched at the transaction's first statement rather than
+ * when it begins.
+ *
+ * Unknown keys fail instead of falling back, so a bad directory entry never
+ * reads or writes the wrong database.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String GLOBAL = "global";
+
+    public ShardRoutingDataSource() {
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String database = ShardContext.current();
+        return database == null ? GLOBAL : database;
+    }
+}
@@ -0,0 +1,78 @@
+package com.fractal.backend.config;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Picks the database for a request from the ids in its path: {workspaceId} (or
+ * {id} under /api/workspaces) through the directory, {projectId} by finding the
+ * database that holds the project. Creating a workspace places it on the
+ * least-loaded shard. Everything else (auth, "my workspaces", accepting an
+ * invitation) starts on the global database.
+ */
+public class ShardRoutingInterceptor implements HandlerInterceptor {
+
+    private static final String WORKSPACES_PATH = "/api/workspaces";
+
+    private final ShardDirectory directory;
+
+    public ShardRoutingInterceptor(ShardDirectory directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ShardContext.set(resolve(request));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        ShardContext.clear();
+    }
+
+    String resolve(HttpServletRequest request) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request
+                .getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String path = request.getRequestURI();
+
+        if (variables != null) {
+            String workspaceId = variables.get("workspaceId");
+            if (workspaceId == null && path.startsWith(WORKSPACES_PATH + "/")) {
+                workspaceId = variables.get("id");
+            }
+            UUID id = parse(workspaceId);
+            if (id != null) {
+                return directory.shardOfWorkspace(id);
+            }
+            UUID projectId = parse(variables.get("projectId"));
+            if (projectId != null) {
+                return directory.shardOfProject(projectId);
+            }
+        }
+        if ("POST".equals(request.getMethod()) && WORKSPACES_PATH.equals(path)) {
+            return directory.placeNewWorkspace();
+        }
+        return null;
+    }
+
+    // Malformed ids are left for the controller to reject with 400
+    private static UUID parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
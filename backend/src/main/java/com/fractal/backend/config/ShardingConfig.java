@@ -0,0 +1,123 @@
+package com.fractal.backend.config;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationStrategy;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Global database + workspace shards behind one routing DataSource.
+ * Off by default; enable with app.sharding.enabled=true and list the shard JDBC
+ * URLs in app.sharding.shard-urls (same credentials as spring.datasource). The
+ * global database is spring.datasource: users, the shard directory and any
+ * workspaces created before sharding was turned on.
+ *
+ * Not combined with read replicas (app.datasource.replicas.enabled); both
+ * provide the application DataSource.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource globalDataSource(
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username}") String username,
+            @Value("${spring.datasource.password}") String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setPoolName(ShardRoutingDataSource.GLOBAL);
+        return dataSource;
+    }
+
+    @Bean
+    public ShardDirectory shardDirectory(
+            HikariDataSource globalDataSource,
+            @Value("${app.sharding.shard-urls}") List<String> urls,
+            ObjectProvider<PlatformTransactionManager> transactionManager) {
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            globalDataSource.copyStateTo(config);
+            config.setJdbcUrl(urls.get(i));
+            config.setPoolName("shard-" + i);
+            shards.put("shard-" + i, new HikariDataSource(config));
+        }
+        return new ShardDirectory(globalDataSource, shards, transactionManager);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource globalDataSource, ShardDirectory shardDirectory) {
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        Map<Object, Object> targets = new HashMap<>(shardDirectory.shardDataSources());
+        targets.put(ShardRoutingDataSource.GLOBAL, globalDataSource);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(globalDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    // Same migrations on every database, then copy users the shards haven't seen yet and list
+    // projects the directory is missing
+    @Bean
+    public FlywayMigrationStrategy shardedFlywayMigrationStrategy(ShardDirectory shardDirectory) {
+        return flyway -> {
+            flyway.migrate();
+            shardDirectory.shardDataSources().values().forEach(shard -> Flyway.configure()
+                    .configuration(flyway.getConfiguration())
+                    .dataSource(shard)
+                    .load()
+                    .migrate());
+            shardDirectory.mirrorAllUsers();
+            shardDirectory.registerAllProjects();
+        };
+    }
+
+    // Query cache keys don't include the database, so a cached result from one shard would be
+    // served for another; entity caches are keyed by globally unique ids and stay on
+    @Bean
+    public HibernatePropertiesCustomizer shardedQueryCacheCustomizer() {
+        return properties -> properties.put("hibernate.cache.use_query_cache", false);
+    }
+
+    // Nested classes are picked up by component scanning on their own, so this one repeats the condition
+    @Configuration
+    @ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+    static class ShardRoutingWebConfig implements WebMvcConfigurer {
+
+        private final ShardDirectory shardDirectory;
+
+        ShardRoutingWebConfig(ShardDirectory shardDirectory) {
+            this.shardDirectory = shardDirectory;
+        }
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(new ShardRoutingInterceptor(shardDirectory)).addPathPatterns("/api/**");
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.fractal.backend.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+/**
+ * Records every JDBC execution as db.statement (tagged with the repository
+ * method that issued it), counts it against the current HTTP request and logs
+ * slow statements. Logged SQL is the statement shape: literals are replaced
+ * with ? and bind values are never printed, only their count.
+ *
+ * Timers are registered once per (repository, type, outcome) and kept here, as
+ * RepositoryMethodMetrics does for repository calls.
+ */
+@Slf4j
+public class SqlMetricsListener implements QueryExecutionListener {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private record TimerKey(String repository, String type, String outcome) {
+    }
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final long slowQueryMillis;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public SqlMetricsListener(ObjectProvider<MeterRegistry> meterRegistry, Duration slowQueryThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowQueryMillis = slowQueryThreshold.toMillis();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        String repository = RepositoryMethodMetrics.currentMethod();
+        SqlRequestStats stats = SqlRequestStats.current();
+
+        String firstShape = null;
+        int parameters = 0;
+        for (QueryInfo query : queryInfoList) {
+            String shape = shape(query.getQuery());
+            if (firstShape == null) {
+                firstShape = shape;
+            }
+            if (stats != null) {
+                stats.record(shape);
+            }
+            parameters += query.getParametersList().size();
+        }
+        if (firstShape == null) {
+            return;
+        }
+
+        long elapsed = execInfo.getElapsedTime();
+        Timer timer = timer(new TimerKey(repository, statementType(firstShape),
+                execInfo.isSuccess() ? "SUCCESS" : "ERROR"));
+        if (timer != null) {
+            timer.record(elapsed, TimeUnit.MILLISECONDS);
+        }
+
+        if (elapsed >= slowQueryMillis) {
+            log.warn("Slow SQL: {} ms, repository={}, batch={}, {} bind parameter sets (redacted): {}",
+                    elapsed, repository, execInfo.isBatch() ? execInfo.getBatchSize() : 0, parameters,
+                    String.join("; ", queryInfoList.stream().map(q -> shape(q.getQuery())).toList()));
+        }
+    }
+
+    // Null until a MeterRegistry exists; nothing is cached before then
+    private Timer timer(TimerKey key) {
+        Timer timer = timers.get(key);
+        if (timer != null) {
+            return timer;
+        }
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return null;
+        }
+        return timers.computeIfAbsent(key, k -> Timer.builder("db.statement")
+                .tag("repository", k.repository())
+                .tag("type", k.type())
+                .tag("outcome", k.outcome())
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /**
+     * Normalizes a statement so executions that differ only in literal values or
+     * IN-list length share one shape.
+     */
+    static String shape(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    static String statementType(String shape) {
+        int end = shape.indexOf(' ');
+        String keyword = (end < 0 ? shape : shape.substring(0, end)).toLowerCase(Locale.ROOT);
+        return switch (keyword) {
+            case "select", "insert", "update", "delete" -> keyword;
+            default -> "other";
+        };
+    }
+}
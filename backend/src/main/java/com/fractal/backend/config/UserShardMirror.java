@@ -0,0 +1,46 @@
+package com.fractal.backend.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fractal.backend.model.User;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Entity listener on User: when sharding is on, every insert and update of a
+ * user is copied to all shards once the transaction commits. Shard tables
+ * reference users by foreign key and the listings there show names and
+ * avatars, so the copies have to follow profile changes as well as signups.
+ */
+@Component
+public class UserShardMirror {
+
+    private final ObjectProvider<ShardDirectory> shardDirectory;
+
+    public UserShardMirror(ObjectProvider<ShardDirectory> shardDirectory) {
+        this.shardDirectory = shardDirectory;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void mirror(User user) {
+        ShardDirectory directory = shardDirectory.getIfAvailable();
+        if (directory == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            directory.mirrorUser(user);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                directory.mirrorUser(user);
+            }
+        });
+    }
+}
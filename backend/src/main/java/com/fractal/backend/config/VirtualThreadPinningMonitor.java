@@ -0,0 +1,74 @@
+package com.fractal.backend.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, i.e. block
+ * inside a synchronized block or a native frame, for longer than the threshold.
+ * Listens to the JFR jdk.VirtualThreadPinned event in-process and records each
+ * one as jvm.threads.virtual.pinned, tagged with the first frame of our own code
+ * on the stack ("other" when it's all library code), plus a warning with that
+ * frame. Only active with spring.threads.virtual.enabled=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements DisposableBean {
+
+    static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final String OWN_CODE = "com.fractal.";
+
+    private final MeterRegistry registry;
+    private final RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry registry,
+            @Value("${app.virtual-threads.pinned-threshold:20ms}") Duration threshold) {
+        this.registry = registry;
+        this.stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::record);
+        stream.startAsync();
+    }
+
+    void record(RecordedEvent event) {
+        String site = site(event.getStackTrace());
+        Timer.builder("jvm.threads.virtual.pinned")
+                .tag("site", site)
+                .description("Time virtual threads spent blocked while pinned to their carrier")
+                .register(registry)
+                .record(event.getDuration());
+        log.warn("Virtual thread pinned for {}ms at {}", event.getDuration().toMillis(), site);
+    }
+
+    // Class.method of the innermost frame in our code: that's the call to change
+    static String site(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "other";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith(OWN_CODE)) {
+                return type.substring(type.lastIndexOf('.') + 1) + "." + frame.getMethod().getName();
+            }
+        }
+        return "other";
+    }
+
+    @Override
+    public void destroy() {
+        stream.close();
+    }
+}
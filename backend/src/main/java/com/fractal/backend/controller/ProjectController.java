@@ -1,32 +1,48 @@
 package com.fractal.backend.controller;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.fractal.backend.dto.AddProjectMemberRequest;
+import com.fractal.backend.dto.BulkAddProjectMembersRequest;
+import com.fractal.backend.dto.BulkCreateProjectsRequest;
+import com.fractal.backend.dto.BulkCreateProjectsResponse;
+import com.fractal.backend.dto.BulkMembersResponse;
 import com.fractal.backend.dto.CreateProjectRequest;
+import com.fractal.backend.dto.DuplicateProjectRequest;
+import com.fractal.backend.dto.ProjectAccessView;
 import com.fractal.backend.dto.ProjectMemberDTO;
 import com.fractal.backend.dto.ProjectResponse;
 import com.fractal.backend.dto.TransferProjectOwnershipRequest;
 import com.fractal.backend.dto.UpdateProjectMemberRequest;
 import com.fractal.backend.model.Project;
 import com.fractal.backend.model.User;
+import com.fractal.backend.service.ArchiveService;
 import com.fractal.backend.service.ProjectService;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -36,6 +52,7 @@ import lombok.RequiredArgsConstructor;
 public class ProjectController {
 
     private final ProjectService projectService;
+    private final ArchiveService archiveService;
 
     private User getAuthenticatedUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -64,24 +81,62 @@ public class ProjectController {
                 .build();
     }
 
+    @PostMapping("/workspaces/{workspaceId}/projects/bulk")
+    public BulkCreateProjectsResponse createProjectTree(
+            @PathVariable UUID workspaceId,
+            @Valid @RequestBody BulkCreateProjectsRequest request) {
+        User user = getAuthenticatedUser();
+        return projectService.createProjectTree(
+                user.getId(), workspaceId, request.getParentId(), request.getProjects());
+    }
+
     @GetMapping("/workspaces/{workspaceId}/projects")
-    public List<ProjectResponse> getProjects(
+    public List<ProjectAccessView> getProjects(
             @PathVariable UUID workspaceId) {
         User user = getAuthenticatedUser();
         return projectService.getProjects(user.getId(), workspaceId);
     }
 
+    // Same payload as getProjects, serialized by Postgres and streamed through without parsing
+    @GetMapping(value = "/workspaces/{workspaceId}/projects/sidebar", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getProjectsJson(@PathVariable UUID workspaceId, HttpServletResponse response) throws IOException {
+        User user = getAuthenticatedUser();
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        projectService.writeProjectsJson(user.getId(), workspaceId, response.getOutputStream());
+    }
+
     @PutMapping("/projects/{projectId}")
-    public ProjectResponse updateProject(
+    public ResponseEntity<ProjectResponse> updateProject(
             @PathVariable UUID projectId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody CreateProjectRequest request) {
         User user = getAuthenticatedUser();
         Project p = projectService.updateProject(
-                user.getId(), projectId, request.getName(), request.getColor());
-        return ProjectResponse.builder()
+                user.getId(), projectId, request.getName(), request.getColor(), ETags.parseIfMatch(ifMatch));
+        return ETags.ok(p.getVersion(), ProjectResponse.builder()
                 .id(p.getId())
                 .name(p.getName())
-                .build();
+                .version(p.getVersion())
+                .build());
+    }
+
+    @PatchMapping(value = "/projects/{projectId}", consumes = "application/merge-patch+json")
+    public ResponseEntity<ProjectResponse> patchProject(
+            @PathVariable UUID projectId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody Map<String, Object> patch) {
+        User user = getAuthenticatedUser();
+        Project p = projectService.patchProject(user.getId(), projectId, patch, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(p.getVersion(), ProjectResponse.builder()
+                .id(p.getId())
+                .name(p.getName())
+                .color(p.getColor())
+                .parentId(p.getParentId())
+                .isArchived(p.isArchived())
+                .descendantCount(p.getDescendantCount())
+                .memberCount(p.getMemberCount())
+                .version(p.getVersion())
+                .build());
     }
 
     @DeleteMapping("/projects/{projectId}")
@@ -92,6 +147,32 @@ public class ProjectController {
         projectService.deleteProject(user.getId(), projectId);
     }
 
+    @PostMapping("/projects/{projectId}/restore")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void restoreProject(@PathVariable UUID projectId) {
+        User user = getAuthenticatedUser();
+        archiveService.restoreProject(user.getId(), projectId);
+    }
+
+    @PostMapping("/projects/{projectId}/duplicate")
+    public ProjectResponse duplicateProject(
+            @PathVariable UUID projectId,
+            @Valid @RequestBody DuplicateProjectRequest request) {
+        User user = getAuthenticatedUser();
+        Project p = projectService.duplicateProject(
+                user.getId(), projectId, request.getTargetParentId(), request.getName(),
+                request.isIncludeMembers());
+        return ProjectResponse.builder()
+                .id(p.getId())
+                .name(p.getName())
+                .color(p.getColor())
+                .parentId(p.getParentId())
+                .role("OWNER")
+                .descendantCount(p.getDescendantCount())
+                .memberCount(p.getMemberCount())
+                .build();
+    }
+
     // --- MEMBERSHIP ---
 
     @GetMapping("/projects/{projectId}/members")
@@ -104,18 +185,36 @@ public class ProjectController {
     @PostMapping("/projects/{projectId}/members")
     public void addMember(
             @PathVariable UUID projectId,
+            @RequestParam(defaultValue = "false") boolean recursive,
             @Valid @RequestBody AddProjectMemberRequest request) {
         User user = getAuthenticatedUser();
-        projectService.addMember(user.getId(), projectId, request.getUserId(), request.getRole());
+        if (recursive) {
+            projectService.addMemberToSubtree(user.getId(), projectId, request.getUserId(), request.getRole());
+        } else {
+            projectService.addMember(user.getId(), projectId, request.getUserId(), request.getRole());
+        }
+    }
+
+    @PostMapping("/projects/{projectId}/members/bulk")
+    public BulkMembersResponse addMembers(
+            @PathVariable UUID projectId,
+            @Valid @RequestBody BulkAddProjectMembersRequest request) {
+        User user = getAuthenticatedUser();
+        return projectService.addMembers(user.getId(), projectId, request.getMembers());
     }
 
     @PutMapping("/projects/{projectId}/members/{userId}")
     public void updateMemberRole(
             @PathVariable UUID projectId,
             @PathVariable UUID userId,
+            @RequestParam(defaultValue = "false") boolean recursive,
             @Valid @RequestBody UpdateProjectMemberRequest request) {
         User user = getAuthenticatedUser();
-        projectService.updateMemberRole(user.getId(), projectId, userId, request.getRole());
+        if (recursive) {
+            projectService.updateMemberRoleInSubtree(user.getId(), projectId, userId, request.getRole());
+        } else {
+            projectService.updateMemberRole(user.getId(), projectId, userId, request.getRole());
+        }
     }
 
     @DeleteMapping("/projects/{projectId}/members/{userId}")
@@ -1,32 +1,44 @@
 package com.fractal.backend.controller;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.fractal.backend.dto.BulkInviteMembersRequest;
+import com.fractal.backend.dto.BulkMembersResponse;
 import com.fractal.backend.dto.CreateWorkspaceRequest;
+import com.fractal.backend.dto.HierarchyVerificationReport;
 import com.fractal.backend.dto.InviteMemberRequest;
 import com.fractal.backend.dto.TransferOwnershipRequest;
+import com.fractal.backend.dto.UpdateMemberInheritanceRequest;
 import com.fractal.backend.dto.UpdateMemberRoleRequest;
 import com.fractal.backend.dto.UpdateWorkspaceRequest;
+import com.fractal.backend.dto.WorkspaceAccessView;
 import com.fractal.backend.dto.WorkspaceMemberDTO;
 import com.fractal.backend.dto.WorkspaceResponse;
 import com.fractal.backend.model.User;
 import com.fractal.backend.model.Workspace;
+import com.fractal.backend.service.ArchiveService;
+import com.fractal.backend.service.HierarchyIntegrityService;
 import com.fractal.backend.service.WorkspaceService;
 
 import jakarta.validation.Valid;
@@ -38,6 +50,8 @@ import lombok.RequiredArgsConstructor;
 public class WorkspaceController {
 
     private final WorkspaceService workspaceService;
+    private final HierarchyIntegrityService hierarchyIntegrityService;
+    private final ArchiveService archiveService;
 
     // --- HELPER FOR AUTH CHECK ---
     private User getAuthenticatedUser() {
@@ -60,26 +74,44 @@ public class WorkspaceController {
                 .name(workspace.getName())
                 .slug(workspace.getSlug())
                 .role("OWNER")
+                .version(workspace.getVersion())
                 .build();
     }
 
     @GetMapping
-    public List<WorkspaceResponse> getUserWorkspaces() {
+    public List<WorkspaceAccessView> getUserWorkspaces() {
         User user = getAuthenticatedUser();
         return workspaceService.getWorkspacesForUser(user.getId());
     }
 
     @PutMapping("/{id}")
-    public WorkspaceResponse updateWorkspace(
+    public ResponseEntity<WorkspaceResponse> updateWorkspace(
             @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody UpdateWorkspaceRequest request) {
         User user = getAuthenticatedUser();
-        Workspace updated = workspaceService.updateWorkspace(user.getId(), id, request.getName(), request.getSlug());
+        Workspace updated = workspaceService.updateWorkspace(user.getId(), id, request.getName(), request.getSlug(),
+                ETags.parseIfMatch(ifMatch));
+        return ETags.ok(updated.getVersion(), toUpdatedResponse(updated));
+    }
+
+    @PatchMapping(value = "/{id}", consumes = "application/merge-patch+json")
+    public ResponseEntity<WorkspaceResponse> patchWorkspace(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody Map<String, Object> patch) {
+        User user = getAuthenticatedUser();
+        Workspace updated = workspaceService.patchWorkspace(user.getId(), id, patch, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(updated.getVersion(), toUpdatedResponse(updated));
+    }
+
+    private WorkspaceResponse toUpdatedResponse(Workspace updated) {
         return WorkspaceResponse.builder()
                 .id(updated.getId())
                 .name(updated.getName())
                 .slug(updated.getSlug())
                 .role("UNKNOWN")
+                .version(updated.getVersion())
                 .build();
     }
 
@@ -90,6 +122,13 @@ public class WorkspaceController {
         workspaceService.deleteWorkspace(user.getId(), id);
     }
 
+    @PostMapping("/{id}/restore")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void restoreWorkspace(@PathVariable UUID id) {
+        User user = getAuthenticatedUser();
+        archiveService.restoreWorkspace(user.getId(), id);
+    }
+
     // --- MEMBER MANAGEMENT ---
 
     @GetMapping("/{id}/members")
@@ -98,6 +137,15 @@ public class WorkspaceController {
         return workspaceService.getWorkspaceMembers(user.getId(), id);
     }
 
+    @GetMapping("/{id}/members/search")
+    public List<WorkspaceMemberDTO> searchMembers(
+            @PathVariable UUID id,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        User user = getAuthenticatedUser();
+        return workspaceService.searchMembers(user.getId(), id, q, limit);
+    }
+
     @DeleteMapping("/{id}/members/{targetUserId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void removeMember(
@@ -124,6 +172,24 @@ public class WorkspaceController {
         workspaceService.transferOwnership(user.getId(), id, request.getNewOwnerId());
     }
 
+    @PutMapping("/{id}/member-inheritance")
+    public void updateMemberInheritance(
+            @PathVariable UUID id,
+            @Valid @RequestBody UpdateMemberInheritanceRequest request) {
+        User user = getAuthenticatedUser();
+        workspaceService.setMemberInheritance(user.getId(), id, request.getMode());
+    }
+
+    // --- MAINTENANCE ---
+
+    @PostMapping("/{id}/hierarchy/verify")
+    public HierarchyVerificationReport verifyHierarchy(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "false") boolean repair) {
+        User user = getAuthenticatedUser();
+        return hierarchyIntegrityService.verifyWorkspace(user.getId(), id, repair);
+    }
+
     // --- INVITATIONS ---
 
     @PostMapping("/{id}/invite")
@@ -134,6 +200,14 @@ public class WorkspaceController {
         workspaceService.inviteMember(user.getId(), id, request.getEmail(), request.getRole());
     }
 
+    @PostMapping("/{id}/invite/bulk")
+    public BulkMembersResponse inviteMembers(
+            @PathVariable UUID id,
+            @Valid @RequestBody BulkInviteMembersRequest request) {
+        User user = getAuthenticatedUser();
+        return workspaceService.inviteMembers(user.getId(), id, request.getInvites());
+    }
+
     @PostMapping("/accept-invite")
     public void acceptInvite(@RequestParam String token) {
         User user = getAuthenticatedUser();
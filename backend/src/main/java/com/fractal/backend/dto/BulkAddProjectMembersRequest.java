@@ -0,0 +1,21 @@
+package com.fractal.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+@Data
+public class BulkAddProjectMembersRequest {
+    // Rows are validated one by one and reported in the response, not rejected as a whole
+    @NotEmpty
+    private List<Member> members = new ArrayList<>();
+
+    @Data
+    public static class Member {
+        private UUID userId;
+        private String role = "VIEWER";
+    }
+}
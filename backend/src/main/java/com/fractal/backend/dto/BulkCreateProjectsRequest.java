@@ -0,0 +1,29 @@
+package com.fractal.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+@Data
+public class BulkCreateProjectsRequest {
+    private UUID parentId; // null = top-level projects
+
+    @NotEmpty
+    @Valid
+    private List<Node> projects = new ArrayList<>();
+
+    @Data
+    public static class Node {
+        private String ref; // client-side reference, echoed back in the id mapping
+        @NotBlank(message = "Name is required")
+        private String name;
+        private String color;
+        @Valid
+        private List<Node> children = new ArrayList<>();
+    }
+}
@@ -0,0 +1,22 @@
+package com.fractal.backend.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BulkCreateProjectsResponse {
+    private List<CreatedProject> projects;
+
+    @Data
+    @Builder
+    public static class CreatedProject {
+        private String ref;
+        private UUID id;
+        private UUID parentId;
+        private String name;
+    }
+}
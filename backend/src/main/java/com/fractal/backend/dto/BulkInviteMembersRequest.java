@@ -0,0 +1,20 @@
+package com.fractal.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+@Data
+public class BulkInviteMembersRequest {
+    // Rows are validated one by one and reported in the response, not rejected as a whole
+    @NotEmpty
+    private List<Invite> invites = new ArrayList<>();
+
+    @Data
+    public static class Invite {
+        private String email;
+        private String role = "MEMBER";
+    }
+}
@@ -0,0 +1,34 @@
+package com.fractal.backend.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BulkMembersResponse {
+    private int succeeded;
+    private int failed;
+    private List<Result> results; // same order as the request
+
+    public static BulkMembersResponse of(List<Result> results, String successStatus) {
+        int succeeded = (int) results.stream().filter(r -> successStatus.equals(r.getStatus())).count();
+        return BulkMembersResponse.builder()
+                .succeeded(succeeded)
+                .failed(results.size() - succeeded)
+                .results(results)
+                .build();
+    }
+
+    @Data
+    @Builder
+    public static class Result {
+        private String email;
+        private UUID userId;
+        private String role;
+        private String status; // INVITED, ADDED, ALREADY_MEMBER, NOT_IN_WORKSPACE, INVALID_EMAIL, INVALID_USER, INVALID_ROLE, FORBIDDEN_ROLE, DUPLICATE
+        private String message;
+    }
+}
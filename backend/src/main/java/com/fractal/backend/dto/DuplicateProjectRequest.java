@@ -0,0 +1,14 @@
+package com.fractal.backend.dto;
+
+import java.util.UUID;
+
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class DuplicateProjectRequest {
+    private UUID targetParentId; // null = copy as a root project
+    @Size(max = 255, message = "Name must be at most 255 characters")
+    private String name; // optional new name for the copied root
+    private boolean includeMembers;
+}
@@ -0,0 +1,20 @@
+package com.fractal.backend.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class HierarchyVerificationReport {
+    private UUID workspaceId;
+    private long projectsScanned;
+    private long missingRows; // expected closure rows not present
+    private long extraRows; // closure rows that shouldn't exist
+    private long depthMismatches;
+    private long brokenParents; // parent_id cycles or pointers outside the workspace
+    private boolean repaired;
+    private List<String> samples; // first few differences, for humans
+}
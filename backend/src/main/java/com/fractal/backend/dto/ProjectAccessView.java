@@ -0,0 +1,16 @@
+package com.fractal.backend.dto;
+
+import java.util.UUID;
+
+// Read model: a project the user can see, with their effective role on it
+public record ProjectAccessView(
+        UUID id,
+        String name,
+        String color,
+        UUID parentId,
+        String role,
+        boolean archived,
+        int descendantCount,
+        int memberCount,
+        long version) {
+}
@@ -14,4 +14,7 @@ public class ProjectResponse {
     private UUID parentId;
     private String role;
     private boolean isArchived;
+    private int descendantCount;
+    private int memberCount;
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.fractal.backend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class UpdateMemberInheritanceRequest {
+    @NotBlank
+    private String mode; // SNAPSHOT, COMPUTED
+}
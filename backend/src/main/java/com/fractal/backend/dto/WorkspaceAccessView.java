@@ -0,0 +1,12 @@
+package com.fractal.backend.dto;
+
+import java.util.UUID;
+
+// Read model: an active workspace the user belongs to, with their role in it
+public record WorkspaceAccessView(
+        UUID id,
+        String name,
+        String slug,
+        String role,
+        long version) {
+}
@@ -12,4 +12,5 @@ public class WorkspaceResponse {
     private String name;
     private String slug;
     private String role; // "OWNER"
+    private Long version;
 }
\ No newline at end of file
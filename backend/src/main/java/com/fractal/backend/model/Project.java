@@ -6,13 +6,13 @@ import java.util.UUID;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.SQLRestriction;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.UuidGenerator;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -28,7 +28,7 @@ import lombok.NoArgsConstructor;
 public class Project {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @UuidGenerator(style = UuidGenerator.Style.VERSION_7)
     private UUID id;
 
     @Column(name = "workspace_id", nullable = false)
@@ -48,6 +48,13 @@ public class Project {
     @Column(name = "created_by", nullable = false)
     private UUID createdBy;
 
+    // Maintained by ProjectRepository count queries, never written by Hibernate
+    @Column(name = "descendant_count", insertable = false, updatable = false)
+    private int descendantCount;
+
+    @Column(name = "member_count", insertable = false, updatable = false)
+    private int memberCount;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private OffsetDateTime createdAt;
@@ -58,4 +65,8 @@ public class Project {
 
     @Column(name = "deleted_at")
     private OffsetDateTime deletedAt;
+
+    // Optimistic lock; exposed to clients as the ETag
+    @Version
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.fractal.backend.model;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Read-only view of the closure table so JPQL can walk ancestors.
+// Rows are written by native queries in ProjectRepository.
+@Entity
+@Table(name = "project_hierarchy")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Immutable
+@IdClass(ProjectHierarchy.ProjectHierarchyId.class)
+public class ProjectHierarchy {
+
+    // Partition key of project_hierarchy (V11)
+    @Id
+    @Column(name = "workspace_id")
+    private UUID workspaceId;
+
+    @Id
+    @Column(name = "ancestor_id")
+    private UUID ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private UUID descendantId;
+
+    @Column(nullable = false)
+    private int depth;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProjectHierarchyId implements Serializable {
+        private UUID workspaceId;
+        private UUID ancestorId;
+        private UUID descendantId;
+    }
+}
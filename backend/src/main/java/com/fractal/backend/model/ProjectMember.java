@@ -25,6 +25,11 @@ import lombok.NoArgsConstructor;
 @IdClass(ProjectMember.ProjectMemberId.class)
 public class ProjectMember {
 
+    // Partition key of project_members (V11); always the project's workspace
+    @Id
+    @Column(name = "workspace_id")
+    private UUID workspaceId;
+
     @Id
     @Column(name = "project_id")
     private UUID projectId;
@@ -47,6 +52,7 @@ public class ProjectMember {
     @NoArgsConstructor
     @AllArgsConstructor
     public static class ProjectMemberId implements Serializable {
+        private UUID workspaceId;
         private UUID projectId;
         private UUID userId;
     }
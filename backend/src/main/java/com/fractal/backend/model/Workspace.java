@@ -3,15 +3,19 @@ package com.fractal.backend.model;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.UuidGenerator;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -23,10 +27,12 @@ import lombok.NoArgsConstructor;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "workspaces")
+@NaturalIdCache(region = "workspaces-by-slug")
 public class Workspace {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @UuidGenerator(style = UuidGenerator.Style.VERSION_7)
     private UUID id;
 
     // The person who pays/owns the data
@@ -36,6 +42,7 @@ public class Workspace {
     @Column(nullable = false)
     private String name;
 
+    @NaturalId(mutable = true) // slug can be renamed in updateWorkspace
     @Column(unique = true)
     private String slug;
 
@@ -46,6 +53,11 @@ public class Workspace {
     @Column(name = "stripe_customer_id")
     private String stripeCustomerId;
 
+    // SNAPSHOT (copy members into new sub-projects) or COMPUTED (inherit from nearest ancestor)
+    @Column(name = "member_inheritance", nullable = false)
+    @Builder.Default
+    private String memberInheritance = "SNAPSHOT";
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private OffsetDateTime createdAt;
@@ -56,4 +68,8 @@ public class Workspace {
 
     @Column(name = "deleted_at")
     private OffsetDateTime deletedAt;
+
+    // Optimistic lock; exposed to clients as the ETag
+    @Version
+    private Long version;
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import java.io.Serializable;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import jakarta.persistence.Column;
@@ -23,6 +25,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @IdClass(WorkspaceMember.WorkspaceMemberId.class) // Defines Composite Key
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "workspace-members")
 public class WorkspaceMember {
 
     @Id
@@ -0,0 +1,309 @@
+package com.fractal.backend.repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import com.fractal.backend.model.Workspace;
+import com.fractal.backend.model.WorkspaceMember;
+
+/**
+ * Moves soft-deleted rows between the live tables and the *_archive tables (V10).
+ *
+ * Every move is a single DELETE ... RETURNING feeding an INSERT, so a row is never
+ * in both places. Closure rows go first, then memberships, then the projects
+ * themselves, which keeps the access triggers on project_hierarchy and
+ * project_members from recomputing anything for rows that are about to go.
+ * Callers run each batch in one transaction.
+ *
+ * Workspaces and their members are also cached by Hibernate (hibernate-cache.conf),
+ * so the methods writing those tables evict the cached copies once the transaction
+ * commits.
+ */
+@Repository
+public class ArchiveRepository {
+
+    private static final String PROJECT_COLUMNS = """
+            id, workspace_id, parent_id, name, color, is_archived, created_by, created_at, updated_at,
+            deleted_at, descendant_count, member_count, version""";
+
+    private static final String PROJECT_MEMBER_COLUMNS = """
+            workspace_id, project_id, user_id, role, is_favorite, notifications_enabled, created_at""";
+
+    // Partitions of project_hierarchy/project_members (V11) holding a batch; an initplan, so
+    // Postgres prunes the others at execution time
+    private static final String BATCH_WORKSPACES = "ANY(ARRAY(SELECT DISTINCT workspace_id FROM projects WHERE id = ANY(?)))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public ArchiveRepository(DataSource dataSource, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    // --- Archiving: Batch Selection (rows stay locked until the batch commits) ---
+
+    // Oldest tombstones first; rows held by a concurrent restore are skipped
+    public List<UUID> lockExpiredProjects(OffsetDateTime cutoff, int limit) {
+        return jdbcTemplate.queryForList("""
+                    SELECT id FROM projects
+                    WHERE deleted_at < ?
+                    ORDER BY deleted_at
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED
+                """, UUID.class, cutoff, limit);
+    }
+
+    // Every project of a deleted workspace, live or not
+    public List<UUID> lockWorkspaceProjects(UUID workspaceId, int limit) {
+        return jdbcTemplate.queryForList("""
+                    SELECT id FROM projects
+                    WHERE workspace_id = ?
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED
+                """, UUID.class, workspaceId, limit);
+    }
+
+    public List<UUID> findExpiredWorkspaces(OffsetDateTime cutoff, int limit) {
+        return jdbcTemplate.queryForList("""
+                    SELECT id FROM workspaces
+                    WHERE deleted_at < ?
+                    ORDER BY deleted_at
+                    LIMIT ?
+                """, UUID.class, cutoff, limit);
+    }
+
+    // --- Archiving: Moves ---
+
+    // Moves the projects with their closure rows (both directions) and memberships; returns projects moved
+    public int archiveProjects(List<UUID> projectIds) {
+        updateWithIds("""
+                    WITH moved AS (
+                        DELETE FROM project_hierarchy
+                        WHERE workspace_id = %1$s
+                        AND (descendant_id = ANY(?) OR ancestor_id = ANY(?))
+                        RETURNING workspace_id, ancestor_id, descendant_id, depth
+                    )
+                    INSERT INTO project_hierarchy_archive (workspace_id, ancestor_id, descendant_id, depth)
+                    SELECT workspace_id, ancestor_id, descendant_id, depth FROM moved
+                    ON CONFLICT DO NOTHING
+                """.formatted(BATCH_WORKSPACES), projectIds, 3);
+        updateWithIds("""
+                    WITH moved AS (
+                        DELETE FROM project_members
+                        WHERE workspace_id = %2$s AND project_id = ANY(?)
+                        RETURNING %1$s
+                    )
+                    INSERT INTO project_members_archive (%1$s)
+                    SELECT %1$s FROM moved
+                    ON CONFLICT DO NOTHING
+                """.formatted(PROJECT_MEMBER_COLUMNS, BATCH_WORKSPACES), projectIds, 2);
+        return updateWithIds("""
+                    WITH moved AS (
+                        DELETE FROM projects
+                        WHERE id = ANY(?)
+                        RETURNING %1$s
+                    )
+                    INSERT INTO projects_archive (%1$s)
+                    SELECT %1$s FROM moved
+                """.formatted(PROJECT_COLUMNS), projectIds, 1);
+    }
+
+    // Only once the workspace has no projects left; invitations are dropped by the FK cascade
+    public boolean archiveWorkspace(UUID workspaceId) {
+        evictWorkspaceAfterCommit(workspaceId);
+        return jdbcTemplate.update("""
+                    WITH ws AS (
+                        DELETE FROM workspaces w
+                        WHERE w.id = ? AND w.deleted_at IS NOT NULL
+                        AND NOT EXISTS (SELECT 1 FROM projects p WHERE p.workspace_id = w.id)
+                        RETURNING w.id, w.owner_id, w.name, w.slug, w.plan_type, w.stripe_customer_id,
+                                  w.created_at, w.updated_at, w.deleted_at, w.member_inheritance, w.version
+                    ), members AS (
+                        DELETE FROM workspace_members m
+                        USING ws
+                        WHERE m.workspace_id = ws.id
+                        RETURNING m.workspace_id, m.user_id, m.role, m.joined_at
+                    ), archived_members AS (
+                        INSERT INTO workspace_members_archive (workspace_id, user_id, role, joined_at)
+                        SELECT workspace_id, user_id, role, joined_at FROM members
+                    )
+                    INSERT INTO workspaces_archive (id, owner_id, name, slug, plan_type, stripe_customer_id,
+                                                    created_at, updated_at, deleted_at, member_inheritance, version)
+                    SELECT id, owner_id, name, slug, plan_type, stripe_customer_id,
+                           created_at, updated_at, deleted_at, member_inheritance, version
+                    FROM ws
+                """, workspaceId) > 0;
+    }
+
+    // --- Restoring: Lookups ---
+
+    public Optional<UUID> findArchivedProjectWorkspaceId(UUID projectId) {
+        return jdbcTemplate.queryForList("SELECT workspace_id FROM projects_archive WHERE id = ?",
+                UUID.class, projectId).stream().findFirst();
+    }
+
+    // The project and every archived project below it
+    public List<UUID> findArchivedSubtreeIds(UUID projectId) {
+        return jdbcTemplate.queryForList("""
+                    SELECT a.id FROM projects_archive a
+                    WHERE a.id = ?
+                    OR a.id IN (SELECT descendant_id FROM project_hierarchy_archive WHERE ancestor_id = ?)
+                """, UUID.class, projectId, projectId);
+    }
+
+    public List<UUID> findArchivedWorkspaceProjectIds(UUID workspaceId) {
+        return jdbcTemplate.queryForList("SELECT id FROM projects_archive WHERE workspace_id = ?",
+                UUID.class, workspaceId);
+    }
+
+    public boolean existsArchivedWorkspace(UUID workspaceId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM workspaces_archive WHERE id = ?)", Boolean.class, workspaceId));
+    }
+
+    public Optional<String> findArchivedWorkspaceRole(UUID workspaceId, UUID userId) {
+        return jdbcTemplate.queryForList(
+                "SELECT role FROM workspace_members_archive WHERE workspace_id = ? AND user_id = ?",
+                String.class, workspaceId, userId).stream().findFirst();
+    }
+
+    // The slug was freed when the workspace left the live table and may have been reused since
+    public boolean isArchivedSlugTaken(UUID workspaceId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("""
+                    SELECT EXISTS (
+                        SELECT 1 FROM workspaces_archive a
+                        JOIN workspaces w ON w.slug = a.slug
+                        WHERE a.id = ?
+                    )
+                """, Boolean.class, workspaceId));
+    }
+
+    // --- Restoring: Moves ---
+
+    // Projects come back unchanged (still soft-deleted if they were); closure rows only
+    // where both ends exist again, memberships only for users that still exist
+    public int unarchiveProjects(List<UUID> projectIds) {
+        if (projectIds.isEmpty()) {
+            return 0;
+        }
+        int restored = updateWithIds("""
+                    WITH moved AS (
+                        DELETE FROM projects_archive
+                        WHERE id = ANY(?)
+                        RETURNING %1$s
+                    )
+                    INSERT INTO projects (%1$s)
+                    SELECT %1$s FROM moved
+                """.formatted(PROJECT_COLUMNS), projectIds, 1);
+        updateWithIds("""
+                    WITH moved AS (
+                        DELETE FROM project_hierarchy_archive a
+                        WHERE (a.descendant_id = ANY(?) OR a.ancestor_id = ANY(?))
+                        AND EXISTS (SELECT 1 FROM projects p WHERE p.id = a.ancestor_id)
+                        AND EXISTS (SELECT 1 FROM projects p WHERE p.id = a.descendant_id)
+                        RETURNING a.workspace_id, a.ancestor_id, a.descendant_id, a.depth
+                    )
+                    INSERT INTO project_hierarchy (workspace_id, ancestor_id, descendant_id, depth)
+                    SELECT workspace_id, ancestor_id, descendant_id, depth FROM moved
+                    ON CONFLICT DO NOTHING
+                """, projectIds, 2);
+        updateWithIds("""
+                    WITH moved AS (
+                        DELETE FROM project_members_archive
+                        WHERE project_id = ANY(?)
+                        RETURNING %1$s
+                    )
+                    INSERT INTO project_members (%1$s)
+                    SELECT %1$s FROM moved m
+                    WHERE EXISTS (SELECT 1 FROM users u WHERE u.id = m.user_id)
+                    ON CONFLICT DO NOTHING
+                """.formatted(PROJECT_MEMBER_COLUMNS), projectIds, 1);
+        updateWithIds("""
+                    UPDATE projects p
+                    SET member_count = (
+                        SELECT COUNT(*) FROM project_members m
+                        WHERE m.workspace_id = p.workspace_id AND m.project_id = p.id
+                    )
+                    WHERE p.id = ANY(?)
+                """, projectIds, 1);
+        return restored;
+    }
+
+    // Comes back live with a bumped version, so ETags handed out before the delete are stale
+    public void unarchiveWorkspace(UUID workspaceId) {
+        evictWorkspaceAfterCommit(workspaceId);
+        jdbcTemplate.update("""
+                    WITH moved AS (
+                        DELETE FROM workspaces_archive
+                        WHERE id = ?
+                        RETURNING id, owner_id, name, slug, plan_type, stripe_customer_id,
+                                  created_at, updated_at, member_inheritance, version
+                    )
+                    INSERT INTO workspaces (id, owner_id, name, slug, plan_type, stripe_customer_id,
+                                           created_at, updated_at, deleted_at, member_inheritance, version)
+                    SELECT id, owner_id, name, slug, plan_type, stripe_customer_id,
+                           created_at, NOW(), NULL, member_inheritance, version + 1
+                    FROM moved
+                """, workspaceId);
+        jdbcTemplate.update("""
+                    WITH moved AS (
+                        DELETE FROM workspace_members_archive
+                        WHERE workspace_id = ?
+                        RETURNING workspace_id, user_id, role, joined_at
+                    )
+                    INSERT INTO workspace_members (workspace_id, user_id, role, joined_at)
+                    SELECT workspace_id, user_id, role, joined_at FROM moved m
+                    WHERE EXISTS (SELECT 1 FROM users u WHERE u.id = m.user_id)
+                """, workspaceId);
+    }
+
+    // The rows are written behind Hibernate's back. Evicting before commit would let a
+    // concurrent read put the old rows straight back, so it waits for the commit.
+    private void evictWorkspaceAfterCommit(UUID workspaceId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictWorkspace(workspaceId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictWorkspace(workspaceId);
+            }
+        });
+    }
+
+    private void evictWorkspace(UUID workspaceId) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(Workspace.class, workspaceId);
+        cache.evictNaturalIdData(Workspace.class);
+        // Membership ids are composite; drop the region rather than guess them
+        cache.evictEntityData(WorkspaceMember.class);
+        cache.evictQueryRegion("workspace-lists");
+    }
+
+    // Binds the same uuid[] to each of the statement's parameters
+    private int updateWithIds(String sql, List<UUID> ids, int parameterCount) {
+        return jdbcTemplate.update(sql, (PreparedStatement ps) -> {
+            Array array = ps.getConnection().createArrayOf("uuid", ids.toArray());
+            for (int i = 1; i <= parameterCount; i++) {
+                ps.setArray(i, array);
+            }
+        });
+    }
+}
@@ -0,0 +1,172 @@
+package com.fractal.backend.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fractal.backend.dto.ProjectAccessView;
+import com.fractal.backend.dto.ProjectMemberDTO;
+import com.fractal.backend.dto.WorkspaceMemberDTO;
+
+/**
+ * Read path for the hot listing endpoints: hand-written SQL mapped column by
+ * column into records. Nothing passes through the persistence context, so there
+ * are no managed instances, snapshots or flush checks, and the records go out as
+ * the response body unchanged.
+ *
+ * Runs on the transaction's connection like every other repository, so callers
+ * still wrap it in a read-only transaction (@Transactional or ReadCoalescer).
+ */
+@Repository
+public class ListingRepository {
+
+    private static final RowMapper<ProjectAccessView> PROJECT = (rs, i) -> new ProjectAccessView(
+            rs.getObject("id", UUID.class),
+            rs.getString("name"),
+            rs.getString("color"),
+            rs.getObject("parent_id", UUID.class),
+            rs.getString("role"),
+            rs.getBoolean("is_archived"),
+            rs.getInt("descendant_count"),
+            rs.getInt("member_count"),
+            rs.getLong("version"));
+
+    private static final RowMapper<ProjectMemberDTO> PROJECT_MEMBER = (rs, i) -> new ProjectMemberDTO(
+            rs.getObject("id", UUID.class),
+            rs.getString("email"),
+            rs.getString("full_name"),
+            rs.getString("avatar_url"),
+            rs.getString("role"),
+            rs.getObject("joined_at", OffsetDateTime.class));
+
+    private static final RowMapper<WorkspaceMemberDTO> WORKSPACE_MEMBER = (rs, i) -> new WorkspaceMemberDTO(
+            rs.getObject("id", UUID.class),
+            rs.getString("email"),
+            rs.getString("full_name"),
+            rs.getString("avatar_url"),
+            rs.getString("role"),
+            rs.getObject("joined_at", OffsetDateTime.class));
+
+    private final JdbcClient jdbcClient;
+
+    public ListingRepository(DataSource dataSource) {
+        this.jdbcClient = JdbcClient.create(dataSource);
+    }
+
+    // Every live project of the workspace, without a role: the same rows for every caller,
+    // so ReadCoalescer can share one read between them (see findProjectRoles).
+    // Oldest first, id breaking ties, so the sidebar doesn't reshuffle between calls.
+    public List<ProjectAccessView> findLiveProjects(UUID workspaceId) {
+        return jdbcClient.sql("""
+                    SELECT p.id, p.name, p.color, p.parent_id, NULL AS role, p.is_archived,
+                           p.descendant_count, p.member_count, p.version
+                    FROM projects p
+                    WHERE p.workspace_id = ? AND p.deleted_at IS NULL
+                    ORDER BY p.created_at, p.id
+                """)
+                .params(workspaceId)
+                .query(PROJECT)
+                .list();
+    }
+
+    // The projects the user can see, with their effective role. user_project_access is kept in
+    // sync by triggers (V6), so this is an index-only scan on its primary key. Its own read-only
+    // transaction: it runs next to a coalesced findLiveProjects, outside any caller transaction.
+    @Transactional(readOnly = true)
+    public Map<UUID, String> findProjectRoles(UUID workspaceId, UUID userId) {
+        Map<UUID, String> roles = new HashMap<>();
+        jdbcClient.sql("""
+                    SELECT a.project_id, a.role
+                    FROM user_project_access a
+                    WHERE a.workspace_id = ? AND a.user_id = ?
+                """)
+                .params(workspaceId, userId)
+                .query(rs -> {
+                    roles.put(rs.getObject("project_id", UUID.class), rs.getString("role"));
+                });
+        return roles;
+    }
+
+    // The projects the user can see with their role, built as a JSON array by Postgres and copied
+    // to out as raw bytes: no row objects, no Jackson. Keys match the ProjectAccessView record.
+    public void writeVisibleProjectsJson(UUID workspaceId, UUID userId, OutputStream out) {
+        jdbcClient.sql("""
+                    SELECT COALESCE(json_agg(json_build_object(
+                               'id', p.id, 'name', p.name, 'color', p.color, 'parentId', p.parent_id,
+                               'role', a.role, 'archived', p.is_archived,
+                               'descendantCount', p.descendant_count, 'memberCount', p.member_count,
+                               'version', p.version) ORDER BY p.created_at, p.id), '[]'::json)::text
+                    FROM user_project_access a
+                    JOIN projects p ON p.id = a.project_id
+                    WHERE a.workspace_id = ? AND a.user_id = ?
+                """)
+                .params(workspaceId, userId)
+                .query(rs -> {
+                    // One row; the driver hands over the column's bytes without decoding them to a String
+                    try (InputStream json = rs.getBinaryStream(1)) {
+                        json.transferTo(out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    // Direct grants on the project (SNAPSHOT inheritance copies them down already)
+    public List<ProjectMemberDTO> findProjectMembers(UUID workspaceId, UUID projectId) {
+        return jdbcClient.sql("""
+                    SELECT u.id, u.email, u.full_name, u.avatar_url, pm.role, pm.created_at AS joined_at
+                    FROM project_members pm
+                    JOIN users u ON u.id = pm.user_id
+                    WHERE pm.workspace_id = ? AND pm.project_id = ?
+                    ORDER BY pm.created_at, u.id
+                """)
+                .params(workspaceId, projectId)
+                .query(PROJECT_MEMBER)
+                .list();
+    }
+
+    // COMPUTED inheritance: the nearest grant per user along the ancestor path
+    public List<ProjectMemberDTO> findEffectiveProjectMembers(UUID workspaceId, UUID projectId) {
+        return jdbcClient.sql("""
+                    SELECT * FROM (
+                        SELECT DISTINCT ON (pm.user_id)
+                               u.id, u.email, u.full_name, u.avatar_url, pm.role, pm.created_at AS joined_at
+                        FROM project_hierarchy h
+                        JOIN project_members pm ON pm.workspace_id = h.workspace_id AND pm.project_id = h.ancestor_id
+                        JOIN users u ON u.id = pm.user_id
+                        WHERE h.workspace_id = ? AND h.descendant_id = ?
+                        ORDER BY pm.user_id, h.depth
+                    ) nearest
+                    ORDER BY joined_at, id
+                """)
+                .params(workspaceId, projectId)
+                .query(PROJECT_MEMBER)
+                .list();
+    }
+
+    public List<WorkspaceMemberDTO> findWorkspaceMembers(UUID workspaceId) {
+        return jdbcClient.sql("""
+                    SELECT u.id, u.email, u.full_name, u.avatar_url, wm.role, wm.joined_at
+                    FROM workspace_members wm
+                    JOIN users u ON u.id = wm.user_id
+                    WHERE wm.workspace_id = ?
+                    ORDER BY wm.joined_at, u.id
+                """)
+                .params(workspaceId)
+                .query(WORKSPACE_MEMBER)
+                .list();
+    }
+}
@@ -0,0 +1,138 @@
+package com.fractal.backend.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Plain JDBC access for work that doesn't fit Spring Data: server-side cursor
+ * scans over whole workspaces and JDBC batch writes. Must be called inside a
+ * transaction so the Postgres driver honours the fetch size (cursor mode).
+ */
+@Repository
+public class ProjectBatchRepository {
+
+    public static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProjectBatchRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    // --- Streaming Reads ---
+
+    // Every project of the workspace (including soft-deleted ones) with its parent pointer
+    public void streamParentLinks(UUID workspaceId, RowCallbackHandler handler) {
+        jdbcTemplate.query("""
+                    SELECT id, parent_id FROM projects
+                    WHERE workspace_id = ?
+                """, handler, workspaceId);
+    }
+
+    // Closure rows grouped by descendant; projects without any rows still appear once with NULL ancestor
+    public void streamClosureRows(UUID workspaceId, RowCallbackHandler handler) {
+        jdbcTemplate.query("""
+                    SELECT p.id AS descendant_id, h.ancestor_id, h.depth
+                    FROM projects p
+                    LEFT JOIN project_hierarchy h ON h.workspace_id = p.workspace_id AND h.descendant_id = p.id
+                    WHERE p.workspace_id = ?
+                    ORDER BY p.id
+                """, handler, workspaceId);
+    }
+
+    // --- Batch Writes (rows are {ancestorId, descendantId, depth}, all in one workspace) ---
+
+    public void insertHierarchyRows(UUID workspaceId, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("""
+                    INSERT INTO project_hierarchy (workspace_id, ancestor_id, descendant_id, depth)
+                    VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING
+                """, rows.stream().map(r -> new Object[] { workspaceId, r[0], r[1], r[2] }).toList());
+    }
+
+    public void updateHierarchyDepths(UUID workspaceId, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(
+                "UPDATE project_hierarchy SET depth = ? WHERE workspace_id = ? AND ancestor_id = ? AND descendant_id = ?",
+                rows.stream().map(r -> new Object[] { r[2], workspaceId, r[0], r[1] }).toList());
+    }
+
+    public void deleteHierarchyRows(UUID workspaceId, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(
+                "DELETE FROM project_hierarchy WHERE workspace_id = ? AND ancestor_id = ? AND descendant_id = ?",
+                rows.stream().map(r -> new Object[] { workspaceId, r[0], r[1] }).toList());
+    }
+
+    // Recompute descendant_count for a whole workspace after a repair
+    public void refreshDescendantCounts(UUID workspaceId) {
+        jdbcTemplate.update("""
+                    UPDATE projects p
+                    SET descendant_count = COALESCE((
+                        SELECT COUNT(*) FROM project_hierarchy h
+                        JOIN projects d ON d.id = h.descendant_id
+                        WHERE h.workspace_id = p.workspace_id AND h.ancestor_id = p.id
+                        AND h.depth > 0 AND d.deleted_at IS NULL
+                    ), 0)
+                    WHERE p.workspace_id = ?
+                """, workspaceId);
+    }
+
+    // --- Bulk Project Creation ---
+
+    // rows are {id, workspaceId, parentId, name, color, createdBy, descendantCount, memberCount}
+    public void insertProjects(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("""
+                    INSERT INTO projects (id, workspace_id, parent_id, name, color, created_by, descendant_count, member_count)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                """, rows, new int[] { Types.OTHER, Types.OTHER, Types.OTHER, Types.VARCHAR, Types.VARCHAR,
+                Types.OTHER, Types.INTEGER, Types.INTEGER });
+    }
+
+    // links are {id, parentId} of the new projects only. Postgres expands them into every closure
+    // row of the new subtree, plus the paths above it taken from the existing parent's rows, so
+    // the request side stays O(n) whatever the depth.
+    public void insertClosureFromParentLinks(UUID workspaceId, List<Object[]> links) {
+        Object[] ids = links.stream().map(l -> l[0]).toArray();
+        Object[] parentIds = links.stream().map(l -> l[1]).toArray();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                        INSERT INTO project_hierarchy (workspace_id, ancestor_id, descendant_id, depth)
+                        WITH RECURSIVE links AS (
+                            SELECT * FROM unnest(?, ?) AS l(id, parent_id)
+                        ),
+                        paths (ancestor_id, descendant_id, depth) AS (
+                            SELECT id, id, 0 FROM links
+                            UNION ALL
+                            SELECT p.ancestor_id, l.id, p.depth + 1
+                            FROM paths p JOIN links l ON l.parent_id = p.descendant_id
+                        )
+                        SELECT ?, ancestor_id, descendant_id, depth FROM paths
+                        UNION ALL
+                        SELECT ?, h.ancestor_id, p.descendant_id, h.depth + p.depth + 1
+                        FROM paths p
+                        JOIN links top ON top.id = p.ancestor_id
+                        JOIN project_hierarchy h ON h.workspace_id = ? AND h.descendant_id = top.parent_id
+                    """);
+            ps.setArray(1, con.createArrayOf("uuid", ids));
+            ps.setArray(2, con.createArrayOf("uuid", parentIds));
+            ps.setObject(3, workspaceId);
+            ps.setObject(4, workspaceId);
+            ps.setObject(5, workspaceId);
+            return ps;
+        });
+    }
+
+    // rows are {projectId, userId, role}
+    public void insertMembers(UUID workspaceId, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO project_members (workspace_id, project_id, user_id, role) VALUES (?, ?, ?, ?)",
+                rows.stream().map(r -> new Object[] { workspaceId, r[0], r[1], r[2] }).toList());
+    }
+}
\ No newline at end of file
@@ -1,33 +1,204 @@
 package com.fractal.backend.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
-import com.fractal.backend.dto.ProjectMemberDTO;
+import jakarta.persistence.QueryHint;
+
 import com.fractal.backend.model.ProjectMember;
 
 @Repository
 public interface ProjectMemberRepository extends JpaRepository<ProjectMember, ProjectMember.ProjectMemberId> {
 
-    Optional<ProjectMember> findByProjectIdAndUserId(UUID projectId, UUID userId);
+    // project_members is hash-partitioned by workspace_id (V11): every lookup names the
+    // workspace so Postgres only reads that partition
+
+    Optional<ProjectMember> findByWorkspaceIdAndProjectIdAndUserId(UUID workspaceId, UUID projectId, UUID userId);
+
+    List<ProjectMember> findAllByWorkspaceIdAndProjectId(UUID workspaceId, UUID projectId);
+
+    List<ProjectMember> findAllByWorkspaceIdAndProjectIdAndUserIdIn(UUID workspaceId, UUID projectId,
+            Collection<UUID> userIds);
+
+    // Removal cascade: the user's rows on every descendant, joined through the closure table
+    // instead of passing the subtree's ids in
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_members"))
+    @Query(value = """
+                DELETE FROM project_members pm
+                USING project_hierarchy h
+                WHERE pm.workspace_id = :workspaceId AND h.workspace_id = :workspaceId
+                AND h.ancestor_id = :projectId AND h.depth > 0
+                AND pm.project_id = h.descendant_id AND pm.user_id = :userId
+            """, nativeQuery = true)
+    int deleteFromDescendants(UUID workspaceId, UUID projectId, UUID userId);
 
-    List<ProjectMember> findAllByProjectId(UUID projectId);
+    // Effective role: explicit row on the project, or (COMPUTED inheritance only)
+    // the nearest ancestor grant. Read from the trigger-maintained access table.
+    @Query(value = """
+                SELECT role FROM user_project_access
+                WHERE project_id = :projectId AND user_id = :userId
+            """, nativeQuery = true)
+    Optional<String> findEffectiveRole(UUID projectId, UUID userId);
+
+    // A grant on a strict ancestor, i.e. what COMPUTED inheritance falls back to without a direct row
+    @Query(value = """
+                SELECT EXISTS (
+                    SELECT 1 FROM project_hierarchy h
+                    JOIN project_members pm ON pm.workspace_id = h.workspace_id AND pm.project_id = h.ancestor_id
+                    WHERE h.workspace_id = :workspaceId AND h.descendant_id = :projectId AND h.depth > 0
+                    AND pm.user_id = :userId
+                )
+            """, nativeQuery = true)
+    boolean existsAncestorGrant(UUID workspaceId, UUID projectId, UUID userId);
+
+    // --- Inheritance Mode Switching ---
+
+    // A parent member without a row on a child was removed there on purpose under SNAPSHOT;
+    // COMPUTED would hand them the parent's role again. Checking parent/child pairs covers
+    // every ancestor: a gap further up is a gap on some pair.
+    @Query(value = """
+                SELECT EXISTS (
+                    SELECT 1 FROM projects c
+                    JOIN project_members pm ON pm.workspace_id = :workspaceId AND pm.project_id = c.parent_id
+                    WHERE c.workspace_id = :workspaceId
+                    AND NOT EXISTS (
+                        SELECT 1 FROM project_members cm
+                        WHERE cm.workspace_id = :workspaceId AND cm.project_id = c.id AND cm.user_id = pm.user_id
+                    )
+                )
+            """, nativeQuery = true)
+    boolean existsParentGrantMissingOnChild(UUID workspaceId);
+
+    // SNAPSHOT -> COMPUTED: drop copies that just repeat the parent's grant
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_members"))
+    @Query(value = """
+                DELETE FROM project_members c
+                USING projects p, project_members pm
+                WHERE c.workspace_id = :workspaceId AND pm.workspace_id = :workspaceId
+                AND p.id = c.project_id AND p.workspace_id = :workspaceId
+                AND pm.project_id = p.parent_id AND pm.user_id = c.user_id
+                AND pm.role = c.role AND c.role <> 'OWNER'
+            """, nativeQuery = true)
+    int deleteRedundantInheritedMembers(UUID workspaceId);
 
-    // Bulk delete for cascading removal of a user from sub-projects
+    // COMPUTED -> SNAPSHOT: write the nearest ancestor grant onto every project
     @Modifying
-    @Query("DELETE FROM ProjectMember pm WHERE pm.userId = :userId AND pm.projectId IN :projectIds")
-    void deleteAllByUserIdAndProjectIdIn(UUID userId, List<UUID> projectIds);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_members"))
+    @Query(value = """
+                INSERT INTO project_members (workspace_id, project_id, user_id, role)
+                SELECT DISTINCT ON (h.descendant_id, pm.user_id) :workspaceId, h.descendant_id, pm.user_id, pm.role
+                FROM project_hierarchy h
+                JOIN project_members pm ON pm.workspace_id = h.workspace_id AND pm.project_id = h.ancestor_id
+                WHERE h.workspace_id = :workspaceId AND pm.workspace_id = :workspaceId AND h.depth > 0
+                ORDER BY h.descendant_id, pm.user_id, h.depth
+                ON CONFLICT (workspace_id, project_id, user_id) DO NOTHING
+            """, nativeQuery = true)
+    int materializeInheritedMembers(UUID workspaceId);
 
-    // Fetch members DTO
-    @Query("SELECT new com.fractal.backend.dto.ProjectMemberDTO(u.id, u.email, u.fullName, u.avatarUrl, pm.role, pm.createdAt) "
-            +
-            "FROM ProjectMember pm JOIN User u ON pm.userId = u.id " +
-            "WHERE pm.projectId = :projectId")
-    List<ProjectMemberDTO> findMembersWithDetails(UUID projectId);
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "projects"))
+    @Query(value = """
+                UPDATE projects p
+                SET member_count = (
+                    SELECT COUNT(*) FROM project_members pm
+                    WHERE pm.workspace_id = :workspaceId AND pm.project_id = p.id
+                )
+                WHERE p.workspace_id = :workspaceId
+            """, nativeQuery = true)
+    void refreshMemberCounts(UUID workspaceId);
+
+    // --- Subtree-wide Membership (one statement per operation) ---
+
+    // Grant a role on every active project in the subtree. Existing rows are
+    // updated, OWNER rows are never overwritten, and member_count is bumped only
+    // for projects that gained a new row. Returns the number of new memberships.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_members"))
+    @Query(value = """
+                WITH upserted AS (
+                    INSERT INTO project_members (workspace_id, project_id, user_id, role)
+                    SELECT :workspaceId, h.descendant_id, :userId, :role
+                    FROM project_hierarchy h
+                    JOIN projects p ON p.workspace_id = :workspaceId AND p.id = h.descendant_id
+                        AND p.deleted_at IS NULL
+                    WHERE h.workspace_id = :workspaceId AND h.ancestor_id = :projectId
+                    ON CONFLICT (workspace_id, project_id, user_id) DO UPDATE SET role = EXCLUDED.role
+                    WHERE project_members.role <> 'OWNER'
+                    RETURNING project_id, (xmax = 0) AS inserted
+                )
+                UPDATE projects p
+                SET member_count = p.member_count + 1
+                FROM upserted u
+                WHERE p.workspace_id = :workspaceId AND p.id = u.project_id AND u.inserted
+            """, nativeQuery = true)
+    int upsertRoleInSubtree(UUID workspaceId, UUID projectId, UUID userId, String role);
+
+    // COMPUTED inheritance: one grant on the subtree root covers its descendants.
+    // Same upsert rules as upsertRoleInSubtree, for the root row only.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_members"))
+    @Query(value = """
+                WITH upserted AS (
+                    INSERT INTO project_members (workspace_id, project_id, user_id, role)
+                    VALUES (:workspaceId, :projectId, :userId, :role)
+                    ON CONFLICT (workspace_id, project_id, user_id) DO UPDATE SET role = EXCLUDED.role
+                    WHERE project_members.role <> 'OWNER'
+                    RETURNING project_id, (xmax = 0) AS inserted
+                )
+                UPDATE projects p
+                SET member_count = p.member_count + 1
+                FROM upserted u
+                WHERE p.workspace_id = :workspaceId AND p.id = u.project_id AND u.inserted
+            """, nativeQuery = true)
+    int upsertRole(UUID workspaceId, UUID projectId, UUID userId, String role);
+
+    // Drops the user's non-OWNER rows below the project, which under COMPUTED inheritance
+    // would override a grant just made on it, and takes them off member_count
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_members"))
+    @Query(value = """
+                WITH removed AS (
+                    DELETE FROM project_members pm
+                    USING project_hierarchy h
+                    WHERE pm.workspace_id = :workspaceId AND h.workspace_id = :workspaceId
+                    AND h.ancestor_id = :projectId AND h.depth > 0
+                    AND pm.project_id = h.descendant_id AND pm.user_id = :userId
+                    AND pm.role <> 'OWNER'
+                    RETURNING pm.project_id
+                )
+                UPDATE projects p
+                SET member_count = p.member_count - 1
+                FROM removed r
+                WHERE p.workspace_id = :workspaceId AND p.id = r.project_id
+            """, nativeQuery = true)
+    int deleteOverridesFromDescendants(UUID workspaceId, UUID projectId, UUID userId);
+
+    // Change the role of existing memberships on every active project in the subtree.
+    // OWNER rows are never touched: the caller rejects an OWNER on the subtree root, and
+    // a descendant the user owns keeps its owner.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_members"))
+    @Query(value = """
+                UPDATE project_members pm
+                SET role = :role
+                FROM project_hierarchy h
+                JOIN projects p ON p.workspace_id = :workspaceId AND p.id = h.descendant_id
+                    AND p.deleted_at IS NULL
+                WHERE h.workspace_id = :workspaceId AND h.ancestor_id = :projectId
+                AND pm.workspace_id = :workspaceId AND pm.project_id = h.descendant_id
+                AND pm.user_id = :userId
+                AND pm.role <> 'OWNER'
+            """, nativeQuery = true)
+    int updateRoleInSubtree(UUID workspaceId, UUID projectId, UUID userId, String role);
 }
\ No newline at end of file
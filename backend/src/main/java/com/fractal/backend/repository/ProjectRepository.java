@@ -1,55 +1,319 @@
 package com.fractal.backend.repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 import com.fractal.backend.model.Project;
 
 @Repository
 public interface ProjectRepository extends JpaRepository<Project, UUID> {
 
-    @Query("SELECT p FROM Project p " +
-            "JOIN ProjectMember pm ON p.id = pm.projectId " +
-            "WHERE p.workspaceId = :workspaceId AND pm.userId = :userId " +
-            "AND p.deletedAt IS NULL")
-    List<Project> findAllByWorkspaceIdAndUserId(UUID workspaceId, UUID userId);
-
     boolean existsByIdAndWorkspaceId(UUID id, UUID workspaceId);
 
+    // Creates a project in one round-trip: access checks, project row, closure rows,
+    // ancestor counts, owner and (SNAPSHOT workspaces only) inherited members. Returns empty when the
+    // user lacks workspace/parent access or the parent doesn't exist (nothing is written).
+    @Query(value = """
+                WITH ws_access AS (
+                    SELECT 1 FROM workspace_members
+                    WHERE workspace_id = :workspaceId AND user_id = :userId
+                ),
+                ws AS (
+                    SELECT member_inheritance FROM workspaces WHERE id = :workspaceId
+                ),
+                parent_access AS (
+                    SELECT 1 FROM user_project_access
+                    WHERE project_id = CAST(:parentId AS UUID) AND user_id = :userId
+                    AND workspace_id = :workspaceId
+                ),
+                inherited AS (
+                    SELECT user_id, role FROM project_members
+                    WHERE workspace_id = :workspaceId
+                    AND project_id = CAST(:parentId AS UUID) AND user_id <> :userId
+                    AND (SELECT member_inheritance FROM ws) = 'SNAPSHOT'
+                ),
+                new_project AS (
+                    INSERT INTO projects (workspace_id, parent_id, name, color, created_by, member_count)
+                    SELECT :workspaceId, CAST(:parentId AS UUID), :name, CAST(:color AS VARCHAR), :userId,
+                           1 + (SELECT COUNT(*) FROM inherited)
+                    WHERE EXISTS (SELECT 1 FROM ws_access)
+                    AND (CAST(:parentId AS UUID) IS NULL OR EXISTS (SELECT 1 FROM parent_access))
+                    RETURNING id
+                ),
+                self_path AS (
+                    INSERT INTO project_hierarchy (workspace_id, ancestor_id, descendant_id, depth)
+                    SELECT :workspaceId, id, id, 0 FROM new_project
+                ),
+                parent_paths AS (
+                    INSERT INTO project_hierarchy (workspace_id, ancestor_id, descendant_id, depth)
+                    SELECT :workspaceId, h.ancestor_id, np.id, h.depth + 1
+                    FROM project_hierarchy h, new_project np
+                    WHERE h.workspace_id = :workspaceId AND h.descendant_id = CAST(:parentId AS UUID)
+                ),
+                ancestor_counts AS (
+                    UPDATE projects p
+                    SET descendant_count = p.descendant_count + 1
+                    FROM project_hierarchy h
+                    WHERE h.workspace_id = :workspaceId AND h.descendant_id = CAST(:parentId AS UUID)
+                    AND p.id = h.ancestor_id
+                    AND EXISTS (SELECT 1 FROM new_project)
+                ),
+                owner AS (
+                    INSERT INTO project_members (workspace_id, project_id, user_id, role)
+                    SELECT :workspaceId, id, :userId, 'OWNER' FROM new_project
+                ),
+                inherited_members AS (
+                    INSERT INTO project_members (workspace_id, project_id, user_id, role)
+                    SELECT :workspaceId, np.id, i.user_id, i.role FROM new_project np, inherited i
+                )
+                SELECT id FROM new_project
+            """, nativeQuery = true)
+    Optional<UUID> createProjectAtomically(UUID workspaceId, UUID parentId, String name, String color, UUID userId);
+
     // --- Closure Table Logic ---
+    // project_hierarchy and project_members are hash-partitioned by workspace_id (V11):
+    // every query below names the workspace so it only touches that partition.
 
     // 1. Insert Self Reference (depth 0)
     @Modifying
-    @Query(value = "INSERT INTO project_hierarchy (ancestor_id, descendant_id, depth) VALUES (:projectId, :projectId, 0)", nativeQuery = true)
-    void insertSelfReference(UUID projectId);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_hierarchy"))
+    @Query(value = """
+                INSERT INTO project_hierarchy (workspace_id, ancestor_id, descendant_id, depth)
+                VALUES (:workspaceId, :projectId, :projectId, 0)
+            """, nativeQuery = true)
+    void insertSelfReference(UUID workspaceId, UUID projectId);
 
     // 2. Insert Hierarchy (Copy paths from parent)
     @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_hierarchy"))
     @Query(value = """
-                INSERT INTO project_hierarchy (ancestor_id, descendant_id, depth)
-                SELECT ancestor_id, :descendantId, depth + 1
+                INSERT INTO project_hierarchy (workspace_id, ancestor_id, descendant_id, depth)
+                SELECT workspace_id, ancestor_id, :descendantId, depth + 1
                 FROM project_hierarchy
-                WHERE descendant_id = :parentId
+                WHERE workspace_id = :workspaceId AND descendant_id = :parentId
+            """, nativeQuery = true)
+    void insertHierarchy(UUID workspaceId, UUID parentId, UUID descendantId);
+
+    // 3. Soft-delete a project and its live descendants in one statement; the subtree comes
+    // from the closure table, so the ids never travel to Java and back as an IN list. One
+    // deleted_at for the whole subtree is what restoreDeletedSubtree matches on, and the
+    // version bump makes ETags handed out before the delete stale.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "projects"))
+    @Query(value = """
+                UPDATE projects p
+                SET deleted_at = :deletedAt, updated_at = :deletedAt, version = p.version + 1
+                FROM project_hierarchy h
+                WHERE h.workspace_id = :workspaceId AND h.ancestor_id = :projectId
+                AND p.id = h.descendant_id AND p.deleted_at IS NULL
+            """, nativeQuery = true)
+    int softDeleteSubtree(UUID workspaceId, UUID projectId, OffsetDateTime deletedAt);
+
+    // --- Subtree Aggregates ---
+
+    // 5. Shift descendant_count on every ancestor (excluding self) in one closure join
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "projects"))
+    @Query(value = """
+                UPDATE projects p
+                SET descendant_count = p.descendant_count + :delta
+                FROM project_hierarchy h
+                WHERE h.workspace_id = :workspaceId AND h.descendant_id = :projectId AND h.depth > 0
+                AND p.id = h.ancestor_id
+            """, nativeQuery = true)
+    void adjustAncestorDescendantCounts(UUID workspaceId, UUID projectId, int delta);
+
+    // 6. Shift member_count on a single project
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "projects"))
+    @Query(value = "UPDATE projects SET member_count = member_count + :delta WHERE id = :projectId", nativeQuery = true)
+    void adjustMemberCount(UUID projectId, int delta);
+
+    // 7. Decrement member_count on every descendant where the user is still a member.
+    // Must run BEFORE the cascade delete of those memberships.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "projects"))
+    @Query(value = """
+                UPDATE projects p
+                SET member_count = p.member_count - 1
+                FROM project_hierarchy h
+                JOIN project_members pm ON pm.workspace_id = h.workspace_id AND pm.project_id = h.descendant_id
+                WHERE h.workspace_id = :workspaceId AND h.ancestor_id = :projectId AND h.depth > 0
+                AND pm.workspace_id = :workspaceId AND pm.user_id = :userId
+                AND p.id = h.descendant_id
+            """, nativeQuery = true)
+    void decrementDescendantMemberCounts(UUID workspaceId, UUID projectId, UUID userId);
+
+    // --- Restore (native, so soft-deleted rows are visible) ---
+
+    @Query(value = "SELECT workspace_id FROM projects WHERE id = :projectId", nativeQuery = true)
+    Optional<UUID> findWorkspaceIdIncludingDeleted(UUID projectId);
+
+    // A restored project must hang under a live parent
+    @Query(value = """
+                SELECT EXISTS (
+                    SELECT 1 FROM projects c
+                    WHERE c.id = :projectId AND c.parent_id IS NOT NULL
+                    AND NOT EXISTS (SELECT 1 FROM projects p WHERE p.id = c.parent_id AND p.deleted_at IS NULL)
+                )
+            """, nativeQuery = true)
+    boolean hasMissingOrDeletedParent(UUID projectId);
+
+    // Un-deletes the nodes that were deleted together with the project (same deleted_at);
+    // descendants deleted on their own before that stay deleted
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "projects"))
+    @Query(value = """
+                UPDATE projects p
+                SET deleted_at = NULL
+                FROM project_hierarchy h, projects root
+                WHERE root.id = :projectId AND root.deleted_at IS NOT NULL
+                AND h.workspace_id = :workspaceId AND h.ancestor_id = root.id
+                AND p.id = h.descendant_id AND p.deleted_at = root.deleted_at
+            """, nativeQuery = true)
+    int restoreDeletedSubtree(UUID workspaceId, UUID projectId);
+
+    // --- Subtree Duplication (set-based, via temp id-mapping table) ---
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_copy_map"))
+    @Query(value = """
+                CREATE TEMP TABLE IF NOT EXISTS project_copy_map (
+                    old_id UUID PRIMARY KEY,
+                    new_id UUID NOT NULL
+                ) ON COMMIT DROP
             """, nativeQuery = true)
-    void insertHierarchy(UUID parentId, UUID descendantId);
+    void createCopyMapTable();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_copy_map"))
+    @Query(value = "DROP TABLE IF EXISTS project_copy_map", nativeQuery = true)
+    void dropCopyMapTable();
 
-    // 3. Find IDs for Cascade Delete (Including Self)
+    // Map every active node of the source subtree to a fresh id
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_copy_map"))
     @Query(value = """
-                SELECT descendant_id FROM project_hierarchy
-                WHERE ancestor_id = :projectId
+                INSERT INTO project_copy_map (old_id, new_id)
+                SELECT h.descendant_id, uuid_generate_v7()
+                FROM project_hierarchy h
+                JOIN projects p ON p.id = h.descendant_id
+                WHERE h.workspace_id = :workspaceId AND h.ancestor_id = :sourceId AND p.deleted_at IS NULL
             """, nativeQuery = true)
-    List<UUID> findAllDescendantIdsIncludingSelf(UUID projectId);
+    int mapSubtreeForCopy(UUID workspaceId, UUID sourceId);
+
+    @Query(value = "SELECT new_id FROM project_copy_map WHERE old_id = :oldId", nativeQuery = true)
+    UUID findCopiedId(UUID oldId);
 
-    // 4. Find IDs for Member Cascade (Excluding Self usually, but here generally
-    // descendants)
+    @Query(value = "SELECT new_id FROM project_copy_map", nativeQuery = true)
+    List<UUID> findAllCopiedIds();
+
+    // Copy project rows; the copied root is re-parented (and optionally renamed)
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "projects"))
+    @Query(value = """
+                INSERT INTO projects (id, workspace_id, parent_id, name, color, is_archived, created_by)
+                SELECT m.new_id,
+                       p.workspace_id,
+                       CASE WHEN p.id = :sourceId THEN CAST(:targetParentId AS UUID) ELSE pm.new_id END,
+                       CASE WHEN p.id = :sourceId THEN COALESCE(CAST(:rootName AS VARCHAR), p.name) ELSE p.name END,
+                       p.color,
+                       p.is_archived,
+                       :userId
+                FROM projects p
+                JOIN project_copy_map m ON m.old_id = p.id
+                LEFT JOIN project_copy_map pm ON pm.old_id = p.parent_id
+            """, nativeQuery = true)
+    void insertCopiedProjects(UUID sourceId, UUID targetParentId, String rootName, UUID userId);
+
+    // Paths inside the copied subtree mirror the source paths
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_hierarchy"))
+    @Query(value = """
+                INSERT INTO project_hierarchy (workspace_id, ancestor_id, descendant_id, depth)
+                SELECT h.workspace_id, ma.new_id, md.new_id, h.depth
+                FROM project_hierarchy h
+                JOIN project_copy_map ma ON ma.old_id = h.ancestor_id
+                JOIN project_copy_map md ON md.old_id = h.descendant_id
+                WHERE h.workspace_id = :workspaceId
+            """, nativeQuery = true)
+    void insertCopiedInternalHierarchy(UUID workspaceId);
+
+    // Paths from the target parent's ancestors (incl. itself) down into the copy
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_hierarchy"))
+    @Query(value = """
+                INSERT INTO project_hierarchy (workspace_id, ancestor_id, descendant_id, depth)
+                SELECT a.workspace_id, a.ancestor_id, md.new_id, a.depth + h.depth + 1
+                FROM project_hierarchy a
+                JOIN project_hierarchy h ON h.workspace_id = :workspaceId AND h.ancestor_id = :sourceId
+                JOIN project_copy_map md ON md.old_id = h.descendant_id
+                WHERE a.workspace_id = :workspaceId AND a.descendant_id = :targetParentId
+            """, nativeQuery = true)
+    void insertCopiedAncestorHierarchy(UUID workspaceId, UUID sourceId, UUID targetParentId);
+
+    // The duplicating user owns every copy
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_members"))
+    @Query(value = """
+                INSERT INTO project_members (workspace_id, project_id, user_id, role)
+                SELECT :workspaceId, m.new_id, :userId, 'OWNER'
+                FROM project_copy_map m
+            """, nativeQuery = true)
+    void insertCopiedOwners(UUID workspaceId, UUID userId);
+
+    // Everyone else keeps their role; former owners become ADMIN
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_members"))
+    @Query(value = """
+                INSERT INTO project_members (workspace_id, project_id, user_id, role)
+                SELECT pm.workspace_id, m.new_id, pm.user_id, CASE WHEN pm.role = 'OWNER' THEN 'ADMIN' ELSE pm.role END
+                FROM project_members pm
+                JOIN project_copy_map m ON m.old_id = pm.project_id
+                WHERE pm.workspace_id = :workspaceId AND pm.user_id <> :userId
+            """, nativeQuery = true)
+    void insertCopiedMembers(UUID workspaceId, UUID userId);
+
+    // Snapshot Inheritance: the target parent's members join every copy, without
+    // replacing a role copied from the source
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "project_members"))
+    @Query(value = """
+                INSERT INTO project_members (workspace_id, project_id, user_id, role)
+                SELECT pm.workspace_id, m.new_id, pm.user_id, pm.role
+                FROM project_members pm
+                CROSS JOIN project_copy_map m
+                WHERE pm.workspace_id = :workspaceId AND pm.project_id = :targetParentId AND pm.user_id <> :userId
+                ON CONFLICT (workspace_id, project_id, user_id) DO NOTHING
+            """, nativeQuery = true)
+    void insertCopiedInheritedMembers(UUID workspaceId, UUID targetParentId, UUID userId);
+
+    // Counts come from the copy itself: deleted source descendants were not copied
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "projects"))
     @Query(value = """
-                SELECT descendant_id FROM project_hierarchy
-                WHERE ancestor_id = :projectId AND depth > 0
+                UPDATE projects p
+                SET member_count = (
+                        SELECT COUNT(*) FROM project_members pm
+                        WHERE pm.workspace_id = :workspaceId AND pm.project_id = p.id
+                    ),
+                    descendant_count = (
+                        SELECT COUNT(*) FROM project_hierarchy h
+                        WHERE h.workspace_id = :workspaceId AND h.ancestor_id = p.id AND h.depth > 0
+                    )
+                FROM project_copy_map m
+                WHERE p.id = m.new_id
             """, nativeQuery = true)
-    List<UUID> findAllDescendantIds(UUID projectId);
+    void refreshCopiedCounts(UUID workspaceId);
 }
\ No newline at end of file
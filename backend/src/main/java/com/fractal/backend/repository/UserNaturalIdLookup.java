@@ -0,0 +1,11 @@
+package com.fractal.backend.repository;
+
+import java.util.Optional;
+
+import com.fractal.backend.model.User;
+
+// Email lookups through Hibernate's natural-id API so they are served from the
+// users-by-email cache region instead of running a query every time
+public interface UserNaturalIdLookup {
+    Optional<User> findByEmail(String email);
+}
@@ -1,14 +1,18 @@
 package com.fractal.backend.repository;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.fractal.backend.model.User;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, UUID> {
-    Optional<User> findByEmail(String email);
-}
\ No newline at end of file
+public interface UserRepository extends JpaRepository<User, UUID>, UserNaturalIdLookup {
+    // emails must already be lower case; served by idx_users_email_lower
+    @Query("SELECT u FROM User u WHERE lower(u.email) IN :emails")
+    List<User> findAllByLowerEmailIn(Collection<String> emails);
+}
@@ -0,0 +1,31 @@
+package com.fractal.backend.repository;
+
+import java.sql.Types;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC batch writes for workspace-level bulk operations.
+ */
+@Repository
+public class WorkspaceBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WorkspaceBatchRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    // rows are {workspaceId, email, role, token, expiresAt, invitedBy}
+    public void insertInvitations(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("""
+                    INSERT INTO workspace_invitations (workspace_id, email, role, token, expires_at, invited_by)
+                    VALUES (?, ?, ?, ?, ?, ?)
+                """, rows, new int[] { Types.OTHER, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.TIMESTAMP_WITH_TIMEZONE, Types.OTHER });
+    }
+}
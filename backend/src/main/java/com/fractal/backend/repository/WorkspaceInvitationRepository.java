@@ -1,9 +1,12 @@
 package com.fractal.backend.repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.fractal.backend.model.WorkspaceInvitation;
@@ -12,4 +15,9 @@ import com.fractal.backend.model.WorkspaceInvitation;
 public interface WorkspaceInvitationRepository extends JpaRepository<WorkspaceInvitation, UUID> {
     Optional<WorkspaceInvitation> findByToken(String token);
     void deleteByWorkspaceIdAndEmail(UUID workspaceId, String email);
+
+    // One DELETE for a whole batch (the derived variant loads and deletes row by row)
+    @Modifying
+    @Query("DELETE FROM WorkspaceInvitation i WHERE i.workspaceId = :workspaceId AND i.email IN :emails")
+    void deleteAllByWorkspaceIdAndEmailIn(UUID workspaceId, Collection<String> emails);
 }
\ No newline at end of file
@@ -1,9 +1,11 @@
 package com.fractal.backend.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -16,14 +18,22 @@ import com.fractal.backend.model.WorkspaceMember;
 public interface WorkspaceMemberRepository extends JpaRepository<WorkspaceMember, WorkspaceMember.WorkspaceMemberId> {
     List<WorkspaceMember> findAllByUserId(UUID userId);
 
-    // Fetch members with User details using a DTO projection
+    // Typeahead: members whose email or name matches the ILIKE pattern, best trigram match first
     @Query("SELECT new com.fractal.backend.dto.WorkspaceMemberDTO(u.id, u.email, u.fullName, u.avatarUrl, wm.role, wm.joinedAt) "
             +
             "FROM WorkspaceMember wm " +
             "JOIN User u ON wm.userId = u.id " +
             "WHERE wm.workspaceId = :workspaceId " +
-            "ORDER BY wm.joinedAt ASC")
-    List<WorkspaceMemberDTO> findMembersByWorkspaceId(@Param("workspaceId") UUID workspaceId);
+            "AND (u.email ILIKE :pattern OR u.fullName ILIKE :pattern) " +
+            "ORDER BY greatest(cast(function('similarity', u.email, :query) as Double), " +
+            "cast(function('similarity', coalesce(u.fullName, ''), :query) as Double)) DESC, u.email ASC")
+    List<WorkspaceMemberDTO> searchMembers(@Param("workspaceId") UUID workspaceId, @Param("pattern") String pattern,
+            @Param("query") String query, Limit limit);
 
-    Optional<WorkspaceMember> findByWorkspaceIdAndUserId(UUID workspaceId, UUID userId);
+    // Primary-key lookup so it is answered from the workspace-members cache region
+    default Optional<WorkspaceMember> findByWorkspaceIdAndUserId(UUID workspaceId, UUID userId) {
+        return findById(new WorkspaceMember.WorkspaceMemberId(workspaceId, userId));
+    }
+
+    List<WorkspaceMember> findAllByWorkspaceIdAndUserIdIn(UUID workspaceId, Collection<UUID> userIds);
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.fractal.backend.repository;
+
+import java.util.Optional;
+
+import com.fractal.backend.model.Workspace;
+
+// Slug lookups through Hibernate's natural-id API (workspaces-by-slug cache region)
+public interface WorkspaceNaturalIdLookup {
+    Optional<Workspace> findBySlug(String slug);
+
+    boolean existsBySlug(String slug);
+}
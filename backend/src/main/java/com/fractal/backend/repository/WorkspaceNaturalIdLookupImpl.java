@@ -0,0 +1,28 @@
+package com.fractal.backend.repository;
+
+import java.util.Optional;
+
+import org.hibernate.Session;
+
+import com.fractal.backend.model.Workspace;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+public class WorkspaceNaturalIdLookupImpl implements WorkspaceNaturalIdLookup {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Workspace> findBySlug(String slug) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Workspace.class)
+                .loadOptional(slug);
+    }
+
+    @Override
+    public boolean existsBySlug(String slug) {
+        return findBySlug(slug).isPresent();
+    }
+}
@@ -3,22 +3,32 @@ package com.fractal.backend.repository;
 import java.util.List;
 import java.util.UUID;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import com.fractal.backend.dto.WorkspaceAccessView;
 import com.fractal.backend.model.Workspace;
 
 @Repository
-public interface WorkspaceRepository extends JpaRepository<Workspace, UUID> {
-    boolean existsBySlug(String slug);
-
+public interface WorkspaceRepository extends JpaRepository<Workspace, UUID>, WorkspaceNaturalIdLookup {
     List<Workspace> findAllByOwnerId(UUID ownerId);
 
-    @Query("SELECT w FROM Workspace w " +
+    // Role comes back with each row so listing needs no per-workspace member lookup. Stays on JPQL
+    // (not ListingRepository) so repeated listings are answered from the query cache.
+    @Query("SELECT new com.fractal.backend.dto.WorkspaceAccessView(w.id, w.name, w.slug, wm.role, w.version) " +
+            "FROM Workspace w " +
             "JOIN WorkspaceMember wm ON w.id = wm.workspaceId " +
             "WHERE wm.userId = :userId " +
             "AND w.deletedAt IS NULL")
-    List<Workspace> findAllActiveWorkspacesByUserId(@Param("userId") UUID userId);
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "workspace-lists")
+    })
+    List<WorkspaceAccessView> findAllActiveWorkspacesByUserId(@Param("userId") UUID userId);
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package com.fractal.backend.security;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fractal.backend.model.User;
+import com.fractal.backend.security.RateLimiter.EndpointClass;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Rejects authenticated API requests over their RateLimiter budget with 429 and
+ * Retry-After (whole seconds). Runs right after JwtAuthenticationFilter, so
+ * anonymous requests pass through to the usual 401 and never create buckets.
+ *
+ * Membership is checked further down (services, shard routing), so a workspace
+ * route is charged to the workspace only after the response shows the caller
+ * was let in: 401, 403 and 404 cost the workspace nothing.
+ *
+ * Not a @Component: Boot would register it as a servlet filter as well, outside
+ * the security chain where there is no authenticated user yet.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Pattern WORKSPACE_PATH = Pattern.compile("^/api/workspaces/([0-9a-fA-F-]{36})(/.*)?$");
+    private static final Pattern INVITE_PATH = Pattern.compile("^/api/workspaces/[^/]+/invite(/bulk)?$");
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !rateLimiter.isEnabled() || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @lombok.NonNull HttpServletRequest request,
+            @lombok.NonNull HttpServletResponse response,
+            @lombok.NonNull FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof User user)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String workspaceId = workspaceOf(path);
+        EndpointClass endpointClass = classify(request.getMethod(), path);
+        Duration wait = rateLimiter.tryAcquire(user.getId().toString(), workspaceId, endpointClass);
+        if (!wait.isZero()) {
+            // Round up so a client that waits exactly Retry-After finds a token
+            long seconds = Math.max(1, (wait.toMillis() + 999) / 1000);
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            return;
+        }
+        filterChain.doFilter(request, response);
+        if (workspaceId != null && isAuthorized(response.getStatus())) {
+            rateLimiter.chargeWorkspace(workspaceId, endpointClass);
+        }
+    }
+
+    static boolean isAuthorized(int status) {
+        return status != HttpStatus.UNAUTHORIZED.value() && status != HttpStatus.FORBIDDEN.value()
+                && status != HttpStatus.NOT_FOUND.value();
+    }
+
+    static EndpointClass classify(String method, String path) {
+        if ("GET".equals(method) || "HEAD".equals(method)) {
+            return EndpointClass.READ;
+        }
+        if ("POST".equals(method) && INVITE_PATH.matcher(path).matches()) {
+            return EndpointClass.INVITE;
+        }
+        return EndpointClass.WRITE;
+    }
+
+    // Project routes don't carry their workspace; those only count against the user's bucket
+    static String workspaceOf(String path) {
+        Matcher matcher = WORKSPACE_PATH.matcher(path);
+        return matcher.matches() ? matcher.group(1).toLowerCase() : null;
+    }
+}
@@ -0,0 +1,160 @@
+package com.fractal.backend.security;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Token buckets per endpoint class, used by RateLimitFilter. Every request takes
+ * a token from the user's bucket; on workspace routes the workspace's bucket must
+ * have one too, so one user can't use up a workspace and many users together
+ * can't exceed what one workspace may send. The workspace's token is only taken
+ * (chargeWorkspace) once the request turned out to be authorized, so accounts
+ * outside a workspace can neither drain its budget nor fill the cache with
+ * buckets for made-up ids. A class allows `capacity` requests at once and refills
+ * completely over `period`, e.g. 300 reads per minute with bursts of up to 300;
+ * workspace buckets hold workspace-factor times as many.
+ *
+ * Each bucket is a single AtomicLong holding the time at which it would be full
+ * again (GCRA), so taking a token is one compare-and-set and there are no locks.
+ * A bucket whose time has passed is full and carries no state, so the buckets
+ * live in a Caffeine cache bounded by maxBuckets that also drops any bucket left
+ * alone for longer than the longest period.
+ */
+@Component
+public class RateLimiter {
+
+    public enum EndpointClass {
+        READ, WRITE, INVITE
+    }
+
+    record Limit(int capacity, Duration period) {
+
+        long intervalNanos() {
+            return period.toNanos() / capacity;
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<EndpointClass, Limit> userLimits;
+    private final Map<EndpointClass, Limit> workspaceLimits;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(
+            @Value("${app.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.rate-limit.max-buckets:100000}") int maxBuckets,
+            @Value("${app.rate-limit.reads.capacity:300}") int readCapacity,
+            @Value("${app.rate-limit.reads.period:1m}") Duration readPeriod,
+            @Value("${app.rate-limit.writes.capacity:60}") int writeCapacity,
+            @Value("${app.rate-limit.writes.period:1m}") Duration writePeriod,
+            @Value("${app.rate-limit.invites.capacity:30}") int inviteCapacity,
+            @Value("${app.rate-limit.invites.period:1h}") Duration invitePeriod,
+            @Value("${app.rate-limit.workspace-factor:10}") int workspaceFactor,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.userLimits = Map.of(
+                EndpointClass.READ, new Limit(readCapacity, readPeriod),
+                EndpointClass.WRITE, new Limit(writeCapacity, writePeriod),
+                EndpointClass.INVITE, new Limit(inviteCapacity, invitePeriod));
+        this.workspaceLimits = Map.of(
+                EndpointClass.READ, new Limit(readCapacity * workspaceFactor, readPeriod),
+                EndpointClass.WRITE, new Limit(writeCapacity * workspaceFactor, writePeriod),
+                EndpointClass.INVITE, new Limit(inviteCapacity * workspaceFactor, invitePeriod));
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(Collections.max(List.of(readPeriod, writePeriod, invitePeriod)))
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Zero when the request may proceed, otherwise how long until both buckets have
+     * a token. Only the user's token is taken; workspaceId is null for routes that
+     * don't name a workspace.
+     */
+    public Duration tryAcquire(String userId, String workspaceId, EndpointClass endpointClass) {
+        long now = System.nanoTime();
+        Limit userLimit = userLimits.get(endpointClass);
+        String userKey = "user:" + userId + ":" + endpointClass;
+        long waitNanos = tryAcquire(userKey, userLimit, now);
+        String scope = "user";
+        if (waitNanos == 0 && workspaceId != null) {
+            waitNanos = peek(workspaceKey(workspaceId, endpointClass), workspaceLimits.get(endpointClass), now);
+            if (waitNanos > 0) {
+                // The workspace is out of tokens: give the user theirs back
+                refund(userKey, userLimit);
+                scope = "workspace";
+            }
+        }
+        if (waitNanos == 0) {
+            return Duration.ZERO;
+        }
+        meterRegistry.counter("http.server.requests.rate.limited", "class", endpointClass.name(), "scope", scope)
+                .increment();
+        return Duration.ofNanos(waitNanos);
+    }
+
+    // Takes the workspace's token for a request that was authorized
+    public void chargeWorkspace(String workspaceId, EndpointClass endpointClass) {
+        tryAcquire(workspaceKey(workspaceId, endpointClass), workspaceLimits.get(endpointClass), System.nanoTime());
+    }
+
+    long tryAcquire(String key, Limit limit, long now) {
+        AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(now));
+        long interval = limit.intervalNanos();
+        long window = interval * limit.capacity();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            // Taking the token would push the bucket past its capacity
+            long wait = next - window - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // How long until the bucket has a token, without taking one or creating the bucket
+    long peek(String key, Limit limit, long now) {
+        AtomicLong fullAt = buckets.getIfPresent(key);
+        if (fullAt == null) {
+            return 0;
+        }
+        long interval = limit.intervalNanos();
+        return Math.max(0, Math.max(fullAt.get(), now) + interval - interval * limit.capacity() - now);
+    }
+
+    private static String workspaceKey(String workspaceId, EndpointClass endpointClass) {
+        return "workspace:" + workspaceId + ":" + endpointClass;
+    }
+
+    private void refund(String key, Limit limit) {
+        AtomicLong fullAt = buckets.getIfPresent(key);
+        if (fullAt != null) {
+            fullAt.addAndGet(-limit.intervalNanos());
+        }
+    }
+
+    long size() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,211 @@
+package com.fractal.backend.service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fractal.backend.config.ShardContext;
+import com.fractal.backend.config.ShardDirectory;
+import com.fractal.backend.model.Workspace;
+import com.fractal.backend.model.WorkspaceMember;
+import com.fractal.backend.repository.ArchiveRepository;
+import com.fractal.backend.repository.ProjectMemberRepository;
+import com.fractal.backend.repository.ProjectRepository;
+import com.fractal.backend.repository.WorkspaceMemberRepository;
+import com.fractal.backend.repository.WorkspaceRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lifecycle of soft-deleted data: restores deleted projects and workspaces, and
+ * moves the ones deleted longer than app.archive.retention ago into the archive
+ * tables so live tables and their indexes only carry rows that can be read.
+ *
+ * The archive run works in small batches, each in its own short transaction with
+ * a pause in between. Batches lock their rows with SKIP LOCKED, so several
+ * instances running the job at once (or a concurrent restore) never collide.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ArchiveService {
+
+    private final ArchiveRepository archiveRepository;
+    private final ProjectRepository projectRepository;
+    private final ProjectMemberRepository projectMemberRepository;
+    private final WorkspaceRepository workspaceRepository;
+    private final WorkspaceMemberRepository workspaceMemberRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<ShardDirectory> shardDirectory; // Only when app.sharding.enabled
+
+    @Value("${app.archive.retention:P30D}")
+    private Duration retention;
+
+    @Value("${app.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.archive.batch-pause:200ms}")
+    private Duration batchPause;
+
+    // --- ARCHIVING ---
+
+    /**
+     * Only scheduled when app.archive.enabled=true (see SchedulingConfig).
+     */
+    @Scheduled(fixedDelayString = "${app.archive.interval:PT1H}", initialDelayString = "${app.archive.initial-delay:PT5M}")
+    public void archiveExpired() {
+        ShardDirectory directory = shardDirectory.getIfAvailable();
+        if (directory == null) {
+            archiveExpiredInCurrentDatabase();
+            return;
+        }
+        // Every database keeps its own tombstones
+        directory.databases().forEach(database -> ShardContext.runOn(database, this::archiveExpiredInCurrentDatabase));
+    }
+
+    private void archiveExpiredInCurrentDatabase() {
+        OffsetDateTime cutoff = OffsetDateTime.now().minus(retention);
+
+        // 1. Projects deleted on their own
+        long projects = drain(() -> archiveRepository.lockExpiredProjects(cutoff, batchSize));
+
+        // 2. Deleted workspaces: all of their projects first, then the workspace itself
+        int workspaces = 0;
+        for (UUID workspaceId : archiveRepository.findExpiredWorkspaces(cutoff, batchSize)) {
+            projects += drain(() -> archiveRepository.lockWorkspaceProjects(workspaceId, batchSize));
+            if (Boolean.TRUE.equals(transactionTemplate.execute(s -> archiveRepository.archiveWorkspace(workspaceId)))) {
+                workspaces++;
+            }
+        }
+
+        if (projects > 0 || workspaces > 0) {
+            log.info("Archived {} projects and {} workspaces deleted before {}", projects, workspaces, cutoff);
+        }
+    }
+
+    // Moves batches until none are left; returns the number of projects moved
+    private long drain(Supplier<List<UUID>> nextBatch) {
+        long moved = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            Integer count = transactionTemplate.execute(s -> {
+                List<UUID> ids = nextBatch.get();
+                return ids.isEmpty() ? 0 : archiveRepository.archiveProjects(ids);
+            });
+            if (count == null || count == 0) {
+                break;
+            }
+            moved += count;
+            pause();
+        }
+        return moved;
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(batchPause.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- RESTORE ---
+
+    /**
+     * Restores a deleted project and everything deleted together with it, whether
+     * it is still soft-deleted or already archived.
+     */
+    @Transactional
+    public void restoreProject(UUID userId, UUID projectId) {
+        Optional<UUID> archivedIn = archiveRepository.findArchivedProjectWorkspaceId(projectId);
+        UUID workspaceId = archivedIn
+                .or(() -> projectRepository.findWorkspaceIdIncludingDeleted(projectId))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Project not found"));
+        if (archivedIn.isPresent() && !workspaceRepository.existsById(workspaceId)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Restore the workspace first");
+        }
+
+        WorkspaceMember wsMember = workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.FORBIDDEN, "Not a workspace member"));
+
+        // 1. Archived rows come back as they were (still soft-deleted); a failure below rolls this back
+        if (archivedIn.isPresent()) {
+            archiveRepository.unarchiveProjects(archiveRepository.findArchivedSubtreeIds(projectId));
+        }
+
+        // 2. Permission: Project OWNER or Workspace OWNER/ADMIN. Deleted projects have no
+        // inherited access rows, so only an explicit OWNER grant counts.
+        if (!List.of("OWNER", "ADMIN").contains(wsMember.getRole())) {
+            boolean projectOwner = projectMemberRepository
+                    .findByWorkspaceIdAndProjectIdAndUserId(workspaceId, projectId, userId)
+                    .map(pm -> "OWNER".equals(pm.getRole()))
+                    .orElse(false);
+            if (!projectOwner) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Insufficient Project Permissions");
+            }
+        }
+
+        // 3. Un-delete the subtree under a live parent
+        if (projectRepository.hasMissingOrDeletedParent(projectId)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Restore the parent project first");
+        }
+        int restored = projectRepository.restoreDeletedSubtree(workspaceId, projectId);
+        if (restored == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Project is not deleted");
+        }
+
+        // 4. Ancestors above the restored subtree get these descendants back
+        projectRepository.adjustAncestorDescendantCounts(workspaceId, projectId, restored);
+    }
+
+    /**
+     * Restores a deleted workspace; an archived one comes back with its members and
+     * projects. Owner only.
+     */
+    @Transactional
+    public void restoreWorkspace(UUID userId, UUID workspaceId) {
+        Optional<Workspace> live = workspaceRepository.findById(workspaceId);
+        if (live.isPresent()) {
+            requireOwner(workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, userId)
+                    .map(WorkspaceMember::getRole));
+            Workspace workspace = live.get();
+            if (workspace.getDeletedAt() == null) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Workspace is not deleted");
+            }
+            workspace.setDeletedAt(null);
+            workspaceRepository.save(workspace);
+            return;
+        }
+
+        if (!archiveRepository.existsArchivedWorkspace(workspaceId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Workspace not found");
+        }
+        requireOwner(archiveRepository.findArchivedWorkspaceRole(workspaceId, userId));
+        if (archiveRepository.isArchivedSlugTaken(workspaceId)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Slug already exists");
+        }
+
+        archiveRepository.unarchiveWorkspace(workspaceId);
+        archiveRepository.unarchiveProjects(archiveRepository.findArchivedWorkspaceProjectIds(workspaceId));
+    }
+
+    private void requireOwner(Optional<String> role) {
+        String actual = role.orElseThrow(
+                () -> new ResponseStatusException(HttpStatus.FORBIDDEN, "Not a workspace member"));
+        if (!"OWNER".equals(actual)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only the owner can restore a workspace");
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.fractal.backend.service;
 
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.fractal.backend.config.ShardDirectory;
 import com.fractal.backend.dto.LoginResponse;
 import com.fractal.backend.model.User;
 import com.fractal.backend.model.Workspace;
@@ -23,6 +26,7 @@ public class AuthService {
     private final UserRepository userRepository;
     private final WorkspaceMemberRepository workspaceMemberRepository; // Inject this
     private final WorkspaceRepository workspaceRepository; // Inject this
+    private final ObjectProvider<ShardDirectory> shardDirectory; // Only when app.sharding.enabled
 
     @Transactional
     public LoginResponse loginOrSignup(String email, String fullName, String avatarUrl) {
@@ -35,10 +39,22 @@ public class AuthService {
                     return userRepository.save(newUser);
                 });
 
-        List<WorkspaceMember> memberships = workspaceMemberRepository.findAllByUserId(user.getId());
+        ShardDirectory directory = shardDirectory.getIfAvailable();
+        List<LoginResponse.WorkspaceDTO> workspaceDTOs = directory == null
+                ? findWorkspaces(user.getId())
+                : directory.fromEveryDatabase(() -> findWorkspaces(user.getId()));
+
+        return LoginResponse.builder()
+                .user(user)
+                .workspaces(workspaceDTOs)
+                .build();
+    }
+
+    private List<LoginResponse.WorkspaceDTO> findWorkspaces(UUID userId) {
+        List<WorkspaceMember> memberships = workspaceMemberRepository.findAllByUserId(userId);
 
         // 2. Map to DTOs
-        List<LoginResponse.WorkspaceDTO> workspaceDTOs = memberships.stream().map(member -> {
+        return memberships.stream().map(member -> {
             Workspace w = workspaceRepository.findById(member.getWorkspaceId()).orElse(null);
             if (w == null)
                 return null;
@@ -50,10 +66,5 @@ public class AuthService {
                     .role(member.getRole())
                     .build();
         }).filter(dto -> dto != null).collect(Collectors.toList());
-
-        return LoginResponse.builder()
-                .user(user)
-                .workspaces(workspaceDTOs)
-                .build();
     }
 }
\ No newline at end of file
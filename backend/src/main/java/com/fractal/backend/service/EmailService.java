@@ -3,7 +3,10 @@ package com.fractal.backend.service;
 import java.io.IOException;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import com.sendgrid.Method;
 import com.sendgrid.Request;
@@ -25,7 +28,16 @@ public class EmailService {
     @Value("${app.frontend.url}")
     private String frontendUrl;
 
-    public void sendWorkspaceInvite(String toEmail, String workspaceName, String inviteToken) {
+    // The only way in: mail goes out after the invitations are committed (never for a
+    // rolled-back invite), on the task executor so the SendGrid calls don't hold the request thread
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onInvitationsCreated(InvitationsCreatedEvent event) {
+        event.tokensByEmail().forEach((email, token) -> sendWorkspaceInvite(email, event.workspaceName(), token));
+    }
+
+    // Blocks on the SendGrid HTTP call; only called from onInvitationsCreated
+    private void sendWorkspaceInvite(String toEmail, String workspaceName, String inviteToken) {
         String inviteLink = frontendUrl + "/auth/invite?token=" + inviteToken;
 
         Email from = new Email("rishabh26072003@gmail.com"); // Use a verified sender ID in SendGrid
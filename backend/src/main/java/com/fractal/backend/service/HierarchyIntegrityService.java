@@ -0,0 +1,213 @@
+package com.fractal.backend.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fractal.backend.dto.HierarchyVerificationReport;
+import com.fractal.backend.model.WorkspaceMember;
+import com.fractal.backend.repository.ProjectBatchRepository;
+import com.fractal.backend.repository.WorkspaceMemberRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Checks that project_hierarchy agrees with projects.parent_id.
+ *
+ * Only the id -> parent_id map of the workspace is held in memory; closure rows
+ * are streamed through a server-side cursor one descendant at a time and
+ * compared against the paths implied by the parent pointers. Repairs are
+ * flushed in JDBC batches while the scan is running.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HierarchyIntegrityService {
+
+    static final int REPAIR_BATCH_SIZE = 500;
+    static final int MAX_SAMPLES = 20;
+
+    private final ProjectBatchRepository projectBatchRepository;
+    private final WorkspaceMemberRepository workspaceMemberRepository;
+
+    @Transactional
+    public HierarchyVerificationReport verifyWorkspace(UUID requesterId, UUID workspaceId, boolean repair) {
+        WorkspaceMember member = workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, requesterId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.FORBIDDEN,
+                        "Access denied: Not a member of this workspace"));
+        if (!List.of("OWNER", "ADMIN").contains(member.getRole())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Insufficient permissions");
+        }
+
+        // 1. Parent pointers (the source of truth)
+        Map<UUID, UUID> parents = new HashMap<>();
+        projectBatchRepository.streamParentLinks(workspaceId,
+                rs -> parents.put(rs.getObject("id", UUID.class), rs.getObject("parent_id", UUID.class)));
+
+        // 2. Stream closure rows and diff them per descendant
+        Verifier verifier = new Verifier(workspaceId, parents, repair);
+        projectBatchRepository.streamClosureRows(workspaceId, rs -> verifier.accept(
+                rs.getObject("descendant_id", UUID.class),
+                rs.getObject("ancestor_id", UUID.class),
+                (Integer) rs.getObject("depth")));
+        verifier.finish();
+
+        HierarchyVerificationReport report = verifier.report();
+        if (report.isRepaired()) {
+            projectBatchRepository.refreshDescendantCounts(workspaceId);
+        }
+        log.info("Hierarchy verification for workspace {}: missing={}, extra={}, depth={}, broken={}, repaired={}",
+                workspaceId, report.getMissingRows(), report.getExtraRows(), report.getDepthMismatches(),
+                report.getBrokenParents(), report.isRepaired());
+        return report;
+    }
+
+    /**
+     * Expected ancestors of a project (self at depth 0) by walking parent_id.
+     * Returns null if the chain loops or leaves the workspace.
+     */
+    static Map<UUID, Integer> expectedAncestors(UUID projectId, Map<UUID, UUID> parents) {
+        Map<UUID, Integer> expected = new LinkedHashMap<>();
+        UUID current = projectId;
+        int depth = 0;
+        while (current != null) {
+            if (!parents.containsKey(current) || expected.containsKey(current)) {
+                return null;
+            }
+            expected.put(current, depth++);
+            current = parents.get(current);
+        }
+        return expected;
+    }
+
+    private class Verifier {
+        private final UUID workspaceId;
+        private final Map<UUID, UUID> parents;
+        private final boolean repair;
+
+        private final List<Object[]> toInsert = new ArrayList<>();
+        private final List<Object[]> toUpdate = new ArrayList<>();
+        private final List<Object[]> toDelete = new ArrayList<>();
+        private final List<String> samples = new ArrayList<>();
+
+        private UUID currentDescendant;
+        private Map<UUID, Integer> currentActual = new HashMap<>();
+
+        private long scanned;
+        private long missing;
+        private long extra;
+        private long depthMismatches;
+        private long brokenParents;
+        private boolean changed;
+
+        Verifier(UUID workspaceId, Map<UUID, UUID> parents, boolean repair) {
+            this.workspaceId = workspaceId;
+            this.parents = parents;
+            this.repair = repair;
+        }
+
+        void accept(UUID descendantId, UUID ancestorId, Integer depth) {
+            if (!descendantId.equals(currentDescendant)) {
+                finishCurrent();
+                currentDescendant = descendantId;
+                currentActual = new HashMap<>();
+            }
+            if (ancestorId != null) {
+                currentActual.put(ancestorId, depth);
+            }
+        }
+
+        void finish() {
+            finishCurrent();
+            flush();
+        }
+
+        private void finishCurrent() {
+            if (currentDescendant == null) {
+                return;
+            }
+            scanned++;
+
+            Map<UUID, Integer> expected = expectedAncestors(currentDescendant, parents);
+            if (expected == null) {
+                // Can't derive paths from a broken parent chain; report only
+                brokenParents++;
+                sample("broken parent chain at " + currentDescendant);
+                return;
+            }
+
+            for (Map.Entry<UUID, Integer> e : expected.entrySet()) {
+                Integer actualDepth = currentActual.get(e.getKey());
+                if (actualDepth == null) {
+                    missing++;
+                    sample("missing " + e.getKey() + " -> " + currentDescendant + " (depth " + e.getValue() + ")");
+                    toInsert.add(new Object[] { e.getKey(), currentDescendant, e.getValue() });
+                } else if (!actualDepth.equals(e.getValue())) {
+                    depthMismatches++;
+                    sample("depth " + actualDepth + " != " + e.getValue() + " for " + e.getKey() + " -> "
+                            + currentDescendant);
+                    toUpdate.add(new Object[] { e.getKey(), currentDescendant, e.getValue() });
+                }
+            }
+            for (Map.Entry<UUID, Integer> a : currentActual.entrySet()) {
+                if (!expected.containsKey(a.getKey())) {
+                    extra++;
+                    sample("extra " + a.getKey() + " -> " + currentDescendant);
+                    toDelete.add(new Object[] { a.getKey(), currentDescendant, a.getValue() });
+                }
+            }
+
+            if (toInsert.size() + toUpdate.size() + toDelete.size() >= REPAIR_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (repair) {
+                if (!toDelete.isEmpty()) {
+                    projectBatchRepository.deleteHierarchyRows(workspaceId, List.copyOf(toDelete));
+                    changed = true;
+                }
+                if (!toUpdate.isEmpty()) {
+                    projectBatchRepository.updateHierarchyDepths(workspaceId, List.copyOf(toUpdate));
+                    changed = true;
+                }
+                if (!toInsert.isEmpty()) {
+                    projectBatchRepository.insertHierarchyRows(workspaceId, List.copyOf(toInsert));
+                    changed = true;
+                }
+            }
+            toInsert.clear();
+            toUpdate.clear();
+            toDelete.clear();
+        }
+
+        private void sample(String difference) {
+            if (samples.size() < MAX_SAMPLES) {
+                samples.add(difference);
+            }
+        }
+
+        HierarchyVerificationReport report() {
+            return HierarchyVerificationReport.builder()
+                    .workspaceId(workspaceId)
+                    .projectsScanned(scanned)
+                    .missingRows(missing)
+                    .extraRows(extra)
+                    .depthMismatches(depthMismatches)
+                    .brokenParents(brokenParents)
+                    .repaired(changed)
+                    .samples(samples)
+                    .build();
+        }
+    }
+}
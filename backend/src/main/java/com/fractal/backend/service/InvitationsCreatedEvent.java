@@ -0,0 +1,10 @@
+package com.fractal.backend.service;
+
+import java.util.Map;
+
+/**
+ * Published once invitation rows are written; emails go out after the
+ * transaction commits so a rolled-back invite never reaches an inbox.
+ */
+public record InvitationsCreatedEvent(String workspaceName, Map<String, String> tokensByEmail) {
+}
@@ -0,0 +1,101 @@
+package com.fractal.backend.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fractal.backend.dto.WorkspaceMemberDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Small in-memory cache for 1-2 character typeahead queries. Those prefixes
+ * can't use the trigram index and match a large share of the workspace, but
+ * there are only a few hundred of them per workspace, so they are worth keeping.
+ *
+ * Entries expire after a short TTL and are dropped for the whole workspace
+ * once a membership change commits; dropping them earlier would let a search
+ * running before the commit cache the old members again. Workspaces nobody
+ * searched for a while are evicted, and their number is capped.
+ *
+ * Guarded by a ReentrantLock rather than synchronized: a virtual thread that
+ * has to wait for a monitor stays pinned to its carrier thread, one waiting on
+ * a ReentrantLock unmounts.
+ */
+@Component
+public class MemberSearchCache {
+
+    static final int MAX_PREFIX_LENGTH = 2;
+    static final int MAX_PREFIXES_PER_WORKSPACE = 256;
+    static final int MAX_WORKSPACES = 10_000;
+    static final Duration TTL = Duration.ofSeconds(60);
+
+    private final Cache<UUID, Prefixes> byWorkspace = Caffeine.newBuilder()
+            .maximumSize(MAX_WORKSPACES)
+            .expireAfterAccess(TTL)
+            .build();
+
+    public boolean isCacheable(String query) {
+        return query.length() <= MAX_PREFIX_LENGTH;
+    }
+
+    public List<WorkspaceMemberDTO> get(UUID workspaceId, String prefix, int limit,
+            Supplier<List<WorkspaceMemberDTO>> loader) {
+        String key = prefix + ":" + limit;
+        Prefixes prefixes = byWorkspace.get(workspaceId, id -> new Prefixes());
+        prefixes.lock.lock();
+        try {
+            Entry entry = prefixes.entries.get(key);
+            if (entry != null && entry.expiresAt() > System.nanoTime()) {
+                return entry.members();
+            }
+        } finally {
+            prefixes.lock.unlock();
+        }
+        // Load outside the lock; concurrent misses for the same key just both query
+        List<WorkspaceMemberDTO> members = List.copyOf(loader.get());
+        prefixes.lock.lock();
+        try {
+            prefixes.entries.put(key, new Entry(members, System.nanoTime() + TTL.toNanos()));
+        } finally {
+            prefixes.lock.unlock();
+        }
+        return members;
+    }
+
+    public void invalidate(UUID workspaceId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            byWorkspace.invalidate(workspaceId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                byWorkspace.invalidate(workspaceId);
+            }
+        });
+    }
+
+    // One workspace's prefixes in access order; reads reorder the map too, so every access takes the lock
+    private static final class Prefixes {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > MAX_PREFIXES_PER_WORKSPACE;
+            }
+        };
+    }
+
+    private record Entry(List<WorkspaceMemberDTO> members, long expiresAt) {
+    }
+}
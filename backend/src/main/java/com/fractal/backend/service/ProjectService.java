@@ -1,24 +1,41 @@
 package com.fractal.backend.service;
 
+import java.io.OutputStream;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.fractal.backend.config.ShardDirectory;
+import com.fractal.backend.dto.BulkAddProjectMembersRequest;
+import com.fractal.backend.dto.BulkCreateProjectsRequest;
+import com.fractal.backend.dto.BulkCreateProjectsResponse;
+import com.fractal.backend.dto.BulkMembersResponse;
+import com.fractal.backend.dto.ProjectAccessView;
 import com.fractal.backend.dto.ProjectMemberDTO;
 import com.fractal.backend.dto.ProjectResponse;
 import com.fractal.backend.model.Project;
 import com.fractal.backend.model.ProjectMember;
 import com.fractal.backend.model.WorkspaceMember;
+import com.fractal.backend.repository.ListingRepository;
+import com.fractal.backend.repository.ProjectBatchRepository;
 import com.fractal.backend.repository.ProjectMemberRepository;
 import com.fractal.backend.repository.ProjectRepository;
 import com.fractal.backend.repository.UserRepository;
 import com.fractal.backend.repository.WorkspaceMemberRepository;
+import com.fractal.backend.repository.WorkspaceRepository;
+import com.fractal.backend.util.UuidV7;
 
 import lombok.RequiredArgsConstructor;
 
@@ -30,109 +47,243 @@ public class ProjectService {
     private final ProjectMemberRepository projectMemberRepository;
     private final WorkspaceMemberRepository workspaceMemberRepository;
     private final UserRepository userRepository;
+    private final WorkspaceRepository workspaceRepository;
+    private final ProjectBatchRepository projectBatchRepository;
+    private final ListingRepository listingRepository;
+    private final ReadCoalescer readCoalescer;
+    private final ObjectProvider<ShardDirectory> shardDirectory; // Only when app.sharding.enabled
+
+    static final int MAX_BULK_PROJECTS = 5000;
+    static final int MAX_BULK_MEMBERS = 1000;
 
     // --- CRUD OPERATIONS ---
 
     @Transactional
     public Project createProject(UUID userId, UUID workspaceId, String name, String color, UUID parentId) {
-        // 1. Verify Workspace Access
+        // 1. Happy path: a single statement checks access, inserts the project, its
+        // closure rows, the OWNER row and the parent's members (Snapshot Inheritance)
+        UUID projectId = projectRepository.createProjectAtomically(workspaceId, parentId, name, color, userId)
+                .orElseThrow(() -> explainCreateFailure(userId, workspaceId, parentId));
+        shardDirectory.ifAvailable(directory -> directory.registerProjects(List.of(projectId)));
+
+        // 2. Everything the caller needs is already known; skip reloading the row
+        return Project.builder()
+                .id(projectId)
+                .workspaceId(workspaceId)
+                .parentId(parentId)
+                .name(name)
+                .color(color)
+                .createdBy(userId)
+                .build();
+    }
+
+    /**
+     * Creates a whole nested tree in one transaction. Permissions are checked once,
+     * ids are generated here, and projects / memberships are written with JDBC
+     * batches instead of one createProject call per node. Closure rows are expanded
+     * by Postgres from the parent links in a single statement.
+     */
+    @Transactional
+    public BulkCreateProjectsResponse createProjectTree(UUID userId, UUID workspaceId, UUID parentId,
+            List<BulkCreateProjectsRequest.Node> nodes) {
+        // 1. Validate once for the whole tree
         workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.FORBIDDEN, "Not a member of this workspace"));
 
-        // 2. Validate Parent (if exists)
+        List<ProjectMember> inherited = List.of();
         if (parentId != null) {
-            boolean parentExists = projectRepository.existsByIdAndWorkspaceId(parentId, workspaceId);
-            if (!parentExists) {
+            if (!projectRepository.existsByIdAndWorkspaceId(parentId, workspaceId)) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Parent project not found in this workspace");
             }
-            // User must have access to parent to create child
-            projectMemberRepository.findByProjectIdAndUserId(parentId, userId)
+            projectMemberRepository.findEffectiveRole(parentId, userId)
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.FORBIDDEN,
                             "You don't have access to the parent project"));
+            if (!isComputedInheritance(workspaceId)) {
+                inherited = projectMemberRepository.findAllByWorkspaceIdAndProjectId(workspaceId, parentId).stream()
+                        .filter(pm -> !pm.getUserId().equals(userId))
+                        .toList();
+            }
         }
 
-        // 3. Save Project
-        Project project = Project.builder()
-                .workspaceId(workspaceId)
-                .parentId(parentId)
-                .name(name)
-                .color(color)
-                .createdBy(userId)
-                .build();
-        Project savedProject = projectRepository.save(project);
-
-        // 4. Build Hierarchy (Closure Table)
-        projectRepository.insertSelfReference(savedProject.getId());
-        if (parentId != null) {
-            projectRepository.insertHierarchy(parentId, savedProject.getId());
+        // 2. Build every row in memory
+        TreeRows rows = new TreeRows(workspaceId, userId, inherited);
+        for (BulkCreateProjectsRequest.Node node : nodes) {
+            rows.add(node, parentId, true);
         }
 
-        // 5. Add Creator as OWNER
-        ProjectMember owner = ProjectMember.builder()
-                .projectId(savedProject.getId())
-                .userId(userId)
-                .role("OWNER")
-                .build();
-        projectMemberRepository.save(owner);
-
-        // 6. Inherit Members from Parent (Snapshot Inheritance)
+        // 3. Write with JDBC batches
+        projectBatchRepository.insertProjects(rows.projects);
+        projectBatchRepository.insertClosureFromParentLinks(workspaceId, rows.parentLinks);
+        projectBatchRepository.insertMembers(workspaceId, rows.members);
+        shardDirectory.ifAvailable(directory -> directory.registerProjects(
+                rows.created.stream().map(BulkCreateProjectsResponse.CreatedProject::getId).toList()));
         if (parentId != null) {
-            inheritMembers(parentId, savedProject.getId(), userId);
+            // All top-level nodes share the same ancestors, so one closure join covers them
+            projectRepository.adjustAncestorDescendantCounts(workspaceId, rows.topLevelIds.get(0),
+                    rows.projects.size());
         }
 
-        return savedProject;
+        return BulkCreateProjectsResponse.builder().projects(rows.created).build();
     }
 
-    public List<ProjectResponse> getProjects(UUID userId, UUID workspaceId) {
+    // Not @Transactional: the membership check and the role lookup run in the repositories' own short
+    // transactions and ReadCoalescer opens one for the shared read only, so waiting callers hold no connection
+    public List<ProjectAccessView> getProjects(UUID userId, UUID workspaceId) {
         // Ensure workspace access
         if (workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, userId).isEmpty()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN);
         }
 
-        List<Project> projects = projectRepository.findAllByWorkspaceIdAndUserId(workspaceId, userId);
-        return projects.stream().map(p -> {
-            ProjectMember pm = projectMemberRepository.findByProjectIdAndUserId(p.getId(), userId).orElse(null);
-            return toResponse(p, pm != null ? pm.getRole() : "UNKNOWN");
-        }).collect(Collectors.toList());
+        // Visibility comes from per-project grants, so no two callers are guaranteed the same list.
+        // The expensive part, the workspace's project rows, is the same for everyone and shared by
+        // the whole herd; each caller then keeps the projects they have a role on (nearest grant first).
+        Map<UUID, String> roles = listingRepository.findProjectRoles(workspaceId, userId);
+        List<ProjectAccessView> projects = readCoalescer.coalesce("getProjects", workspaceId, null,
+                () -> listingRepository.findLiveProjects(workspaceId));
+        List<ProjectAccessView> visible = new ArrayList<>(roles.size());
+        for (ProjectAccessView p : projects) {
+            String role = roles.get(p.id());
+            if (role != null) {
+                visible.add(new ProjectAccessView(p.id(), p.name(), p.color(), p.parentId(), role, p.archived(),
+                        p.descendantCount(), p.memberCount(), p.version()));
+            }
+        }
+        return visible;
     }
 
+    // getProjects as bytes Postgres already serialized (the sidebar's fast path)
+    @Transactional(readOnly = true)
+    public void writeProjectsJson(UUID userId, UUID workspaceId, OutputStream out) {
+        if (workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, userId).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+        listingRepository.writeVisibleProjectsJson(workspaceId, userId, out);
+    }
+
+    /**
+     * expectedVersion comes from If-Match; null skips the precondition. A concurrent
+     * commit between read and write is still caught by the versioned UPDATE.
+     */
     @Transactional
-    public Project updateProject(UUID userId, UUID projectId, String name, String color) {
+    public Project updateProject(UUID userId, UUID projectId, String name, String color, Long expectedVersion) {
         validateProjectAdminAccess(userId, projectId); // Strict Permission Check
 
         Project project = getProjectOrThrow(projectId);
+        checkVersion(project, expectedVersion);
         if (name != null && !name.isBlank())
             project.setName(name);
         if (color != null)
             project.setColor(color);
 
-        return projectRepository.save(project);
+        return saveVersioned(project);
+    }
+
+    /**
+     * JSON Merge Patch (RFC 7396): only the fields present are changed and an
+     * explicit null clears an optional field.
+     */
+    @Transactional
+    public Project patchProject(UUID userId, UUID projectId, Map<String, Object> patch, Long expectedVersion) {
+        validateProjectAdminAccess(userId, projectId);
+
+        Project project = getProjectOrThrow(projectId);
+        checkVersion(project, expectedVersion);
+        patch.forEach((field, value) -> {
+            switch (field) {
+                case "name" -> {
+                    if (!(value instanceof String name) || name.isBlank()) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "name must be a non-empty string");
+                    }
+                    project.setName(name);
+                }
+                case "color" -> {
+                    if (value != null && !(value instanceof String)) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "color must be a string or null");
+                    }
+                    project.setColor((String) value);
+                }
+                default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Field cannot be patched: " + field);
+            }
+        });
+
+        return saveVersioned(project);
     }
 
     @Transactional
     public void deleteProject(UUID userId, UUID projectId) {
         // Permission: Project OWNER or Workspace OWNER/ADMIN
         checkStrictPermission(userId, projectId, List.of("OWNER"));
+        UUID workspaceId = getProjectOrThrow(projectId).getWorkspaceId();
 
-        // 1. Get all descendants (Self + Children + Grandchildren)
-        List<UUID> allIdsToDelete = projectRepository.findAllDescendantIdsIncludingSelf(projectId);
+        // 1. Soft delete the project with all of its live descendants
+        int deleted = projectRepository.softDeleteSubtree(workspaceId, projectId, OffsetDateTime.now());
+
+        // 2. Ancestors above the deleted subtree lose these descendants
+        projectRepository.adjustAncestorDescendantCounts(workspaceId, projectId, -deleted);
+    }
 
-        // 2. Soft delete all of them
-        List<Project> projects = projectRepository.findAllById(allIdsToDelete);
-        OffsetDateTime now = OffsetDateTime.now();
-        projects.forEach(p -> p.setDeletedAt(now));
+    @Transactional
+    public Project duplicateProject(UUID userId, UUID projectId, UUID targetParentId, String name,
+            boolean includeMembers) {
+        Project source = getProjectOrThrow(projectId);
+        UUID workspaceId = source.getWorkspaceId();
+
+        // 1. Verify Access: copying writes a whole subtree, so viewers may not
+        checkStrictPermission(userId, projectId, List.of("OWNER", "ADMIN", "EDITOR"));
+
+        // 2. Validate Target Parent (same rules as createProject)
+        if (targetParentId != null) {
+            if (!projectRepository.existsByIdAndWorkspaceId(targetParentId, workspaceId)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Parent project not found in this workspace");
+            }
+            projectMemberRepository.findEffectiveRole(targetParentId, userId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.FORBIDDEN,
+                            "You don't have access to the parent project"));
+        }
 
-        projectRepository.saveAll(projects);
+        // 3. Copy the whole subtree with a handful of set-based statements
+        projectRepository.createCopyMapTable();
+        int copied = projectRepository.mapSubtreeForCopy(workspaceId, projectId);
+        String rootName = (name != null && !name.isBlank()) ? name : null;
+        projectRepository.insertCopiedProjects(projectId, targetParentId, rootName, userId);
+        projectRepository.insertCopiedInternalHierarchy(workspaceId);
+        if (targetParentId != null) {
+            projectRepository.insertCopiedAncestorHierarchy(workspaceId, projectId, targetParentId);
+        }
+        projectRepository.insertCopiedOwners(workspaceId, userId);
+        if (includeMembers) {
+            projectRepository.insertCopiedMembers(workspaceId, userId);
+        }
+        if (targetParentId != null && !isComputedInheritance(workspaceId)) {
+            projectRepository.insertCopiedInheritedMembers(workspaceId, targetParentId, userId);
+        }
+        projectRepository.refreshCopiedCounts(workspaceId);
+        UUID newRootId = projectRepository.findCopiedId(projectId);
+        shardDirectory.ifAvailable(directory -> directory.registerProjects(projectRepository.findAllCopiedIds()));
+        projectRepository.dropCopyMapTable();
+
+        // 4. Ancestors of the target gain the copied nodes
+        if (targetParentId != null) {
+            projectRepository.adjustAncestorDescendantCounts(workspaceId, newRootId, copied);
+        }
+
+        return getProjectOrThrow(newRootId);
     }
 
     // --- MEMBER MANAGEMENT ---
 
+    @Transactional(readOnly = true)
     public List<ProjectMemberDTO> getProjectMembers(UUID userId, UUID projectId) {
-        // Any member can view other members
-        projectMemberRepository.findByProjectIdAndUserId(projectId, userId)
+        // Any member (direct or inherited) can view other members
+        projectMemberRepository.findEffectiveRole(projectId, userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.FORBIDDEN, "Not a member of this project"));
 
-        return projectMemberRepository.findMembersWithDetails(projectId);
+        Project project = getProjectOrThrow(projectId);
+        if (isComputedInheritance(project.getWorkspaceId())) {
+            return listingRepository.findEffectiveProjectMembers(project.getWorkspaceId(), projectId);
+        }
+        return listingRepository.findProjectMembers(project.getWorkspaceId(), projectId);
     }
 
     @Transactional
@@ -151,22 +302,123 @@ public class ProjectService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User must be a member of the workspace first");
         }
 
-        if (projectMemberRepository.findByProjectIdAndUserId(projectId, newUserId).isPresent()) {
+        if (projectMemberRepository
+                .findByWorkspaceIdAndProjectIdAndUserId(project.getWorkspaceId(), projectId, newUserId).isPresent()) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "User is already a member");
         }
 
         ProjectMember pm = ProjectMember.builder()
+                .workspaceId(project.getWorkspaceId())
                 .projectId(projectId)
                 .userId(newUserId)
                 .role(role)
                 .build();
         projectMemberRepository.save(pm);
+        projectRepository.adjustMemberCount(projectId, 1);
+    }
+
+    /**
+     * Adds many workspace members to a project. The permission check runs once;
+     * workspace and project memberships are looked up with one IN query each and
+     * new rows are written as a single JDBC batch. Each row gets its own status.
+     */
+    @Transactional
+    public BulkMembersResponse addMembers(UUID requesterId, UUID projectId,
+            List<BulkAddProjectMembersRequest.Member> members) {
+        if (members.size() > MAX_BULK_MEMBERS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many members in one request (max " + MAX_BULK_MEMBERS + ")");
+        }
+        validateProjectAdminAccess(requesterId, projectId);
+        Project project = getProjectOrThrow(projectId);
+
+        // 1. Per-row validation
+        List<BulkMembersResponse.Result> results = new ArrayList<>();
+        Map<UUID, BulkMembersResponse.Result> pending = new LinkedHashMap<>();
+        for (BulkAddProjectMembersRequest.Member member : members) {
+            String role = member.getRole() == null ? "VIEWER" : member.getRole();
+            BulkMembersResponse.Result result = BulkMembersResponse.Result.builder()
+                    .userId(member.getUserId())
+                    .role(role)
+                    .build();
+            results.add(result);
+
+            if (member.getUserId() == null) {
+                result.setStatus("INVALID_USER");
+            } else if (!List.of("ADMIN", "EDITOR", "VIEWER").contains(role)) {
+                result.setStatus("INVALID_ROLE");
+            } else if (pending.putIfAbsent(member.getUserId(), result) != null) {
+                result.setStatus("DUPLICATE");
+            }
+        }
+
+        // 2. Must be in the workspace, must not be on the project yet
+        if (!pending.isEmpty()) {
+            Set<UUID> inWorkspace = workspaceMemberRepository
+                    .findAllByWorkspaceIdAndUserIdIn(project.getWorkspaceId(), pending.keySet()).stream()
+                    .map(WorkspaceMember::getUserId)
+                    .collect(Collectors.toSet());
+            pending.entrySet().removeIf(e -> {
+                if (!inWorkspace.contains(e.getKey())) {
+                    e.getValue().setStatus("NOT_IN_WORKSPACE");
+                    return true;
+                }
+                return false;
+            });
+        }
+        if (!pending.isEmpty()) {
+            projectMemberRepository
+                    .findAllByWorkspaceIdAndProjectIdAndUserIdIn(project.getWorkspaceId(), projectId, pending.keySet())
+                    .forEach(pm -> pending.remove(pm.getUserId()).setStatus("ALREADY_MEMBER"));
+        }
+
+        // 3. One batch insert
+        if (!pending.isEmpty()) {
+            List<Object[]> rows = new ArrayList<>(pending.size());
+            pending.forEach((memberId, result) -> {
+                rows.add(new Object[] { projectId, memberId, result.getRole() });
+                result.setStatus("ADDED");
+            });
+            projectBatchRepository.insertMembers(project.getWorkspaceId(), rows);
+            projectRepository.adjustMemberCount(projectId, rows.size());
+        }
+
+        return BulkMembersResponse.of(results, "ADDED");
+    }
+
+    /**
+     * Grants (or changes) a role on the project and every sub-project. OWNER rows
+     * anywhere in the subtree are left untouched. SNAPSHOT workspaces get a row on
+     * every project in one statement; under COMPUTED inheritance the root's row is
+     * enough, so only it is written and the user's descendant overrides are dropped.
+     */
+    @Transactional
+    public void addMemberToSubtree(UUID requesterId, UUID projectId, UUID newUserId, String role) {
+        validateProjectAdminAccess(requesterId, projectId);
+        validateRole(role);
+        if ("OWNER".equals(role))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Use transfer ownership");
+
+        Project project = getProjectOrThrow(projectId);
+        if (workspaceMemberRepository.findByWorkspaceIdAndUserId(project.getWorkspaceId(), newUserId).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User must be a member of the workspace first");
+        }
+
+        UUID workspaceId = project.getWorkspaceId();
+        if (isComputedInheritance(workspaceId)) {
+            projectMemberRepository.upsertRole(workspaceId, projectId, newUserId, role);
+            projectMemberRepository.deleteOverridesFromDescendants(workspaceId, projectId, newUserId);
+            return;
+        }
+        projectMemberRepository.upsertRoleInSubtree(workspaceId, projectId, newUserId, role);
     }
 
     @Transactional
     public void removeMember(UUID requesterId, UUID projectId, UUID targetUserId) {
         // 1. Check Permissions
-        ProjectMember target = projectMemberRepository.findByProjectIdAndUserId(projectId, targetUserId)
+        UUID workspaceId = getProjectOrThrow(projectId).getWorkspaceId();
+        ProjectMember target = projectMemberRepository
+                .findByWorkspaceIdAndProjectIdAndUserId(workspaceId, projectId, targetUserId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Member not found"));
 
         if (!requesterId.equals(targetUserId)) {
@@ -179,14 +431,20 @@ public class ProjectService {
                     "Cannot remove the project Owner. Transfer ownership first.");
         }
 
-        // 2. Remove from THIS project
+        // 2. Under COMPUTED inheritance an ancestor grant would still apply
+        if (isComputedInheritance(workspaceId)
+                && projectMemberRepository.existsAncestorGrant(workspaceId, projectId, targetUserId)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Access is inherited from a parent project. Remove the member there.");
+        }
+
+        // 3. Remove from THIS project
         projectMemberRepository.delete(target);
+        projectRepository.adjustMemberCount(projectId, -1);
 
-        // 3. CASCADE REMOVE from sub-projects (Recursively remove access)
-        List<UUID> descendantIds = projectRepository.findAllDescendantIds(projectId);
-        if (!descendantIds.isEmpty()) {
-            projectMemberRepository.deleteAllByUserIdAndProjectIdIn(targetUserId, descendantIds);
-        }
+        // 4. CASCADE REMOVE from sub-projects (Recursively remove access)
+        projectRepository.decrementDescendantMemberCounts(workspaceId, projectId, targetUserId);
+        projectMemberRepository.deleteFromDescendants(workspaceId, projectId, targetUserId);
     }
 
     @Transactional
@@ -196,7 +454,9 @@ public class ProjectService {
         if ("OWNER".equals(newRole))
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Use transfer ownership");
 
-        ProjectMember target = projectMemberRepository.findByProjectIdAndUserId(projectId, targetUserId)
+        UUID workspaceId = getProjectOrThrow(projectId).getWorkspaceId();
+        ProjectMember target = projectMemberRepository
+                .findByWorkspaceIdAndProjectIdAndUserId(workspaceId, projectId, targetUserId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Member not found"));
 
         if ("OWNER".equals(target.getRole())) {
@@ -207,23 +467,47 @@ public class ProjectService {
         projectMemberRepository.save(target);
     }
 
+    @Transactional
+    public void updateMemberRoleInSubtree(UUID requesterId, UUID projectId, UUID targetUserId, String newRole) {
+        validateProjectAdminAccess(requesterId, projectId);
+        validateRole(newRole);
+        if ("OWNER".equals(newRole))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Use transfer ownership");
+
+        UUID workspaceId = getProjectOrThrow(projectId).getWorkspaceId();
+        // Same rule as updateMemberRole for the root; owned descendants are left as they are
+        projectMemberRepository.findByWorkspaceIdAndProjectIdAndUserId(workspaceId, projectId, targetUserId)
+                .filter(member -> "OWNER".equals(member.getRole()))
+                .ifPresent(member -> {
+                    throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Cannot change role of Project Owner");
+                });
+        int updated = projectMemberRepository.updateRoleInSubtree(workspaceId, projectId, targetUserId, newRole);
+        if (updated == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Member not found");
+        }
+    }
+
     @Transactional
     public void transferOwnership(UUID requesterId, UUID projectId, UUID newOwnerId) {
         // 1. Permission: Only Current Project OWNER or Workspace OWNER
         checkStrictPermission(requesterId, projectId, List.of("OWNER"));
+        UUID workspaceId = getProjectOrThrow(projectId).getWorkspaceId();
 
-        ProjectMember currentOwner = projectMemberRepository.findByProjectIdAndUserId(projectId, requesterId)
+        ProjectMember currentOwner = projectMemberRepository
+                .findByWorkspaceIdAndProjectIdAndUserId(workspaceId, projectId, requesterId)
                 .orElse(null); // Might be null if Workspace Owner is doing the transfer logic (Edge case
                                // handled by logic below)
 
-        ProjectMember newOwner = projectMemberRepository.findByProjectIdAndUserId(projectId, newOwnerId)
+        ProjectMember newOwner = projectMemberRepository
+                .findByWorkspaceIdAndProjectIdAndUserId(workspaceId, projectId, newOwnerId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
                         "New owner must be a member of the project"));
 
         // 2. Logic: Demote current owner (if exists in project) -> ADMIN, Promote new
         // -> OWNER
         // We find the *actual* owner record in DB to be safe
-        ProjectMember actualOwnerRecord = projectMemberRepository.findAllByProjectId(projectId).stream()
+        ProjectMember actualOwnerRecord = projectMemberRepository
+                .findAllByWorkspaceIdAndProjectId(workspaceId, projectId).stream()
                 .filter(pm -> "OWNER".equals(pm.getRole()))
                 .findFirst()
                 .orElseThrow(
@@ -236,14 +520,6 @@ public class ProjectService {
         projectMemberRepository.save(newOwner);
     }
 
-    @Transactional
-    public void restoreProject(UUID userId, UUID projectId) {
-        List<UUID> allIdsToRestore = projectRepository.findAllDescendantIdsIncludingSelf(projectId);
-        List<Project> projects = projectRepository.findAllById(allIdsToRestore);
-        projects.forEach(p -> p.setDeletedAt(null));
-        projectRepository.saveAll(projects);
-    }
-
     // --- HELPERS ---
 
     private Project getProjectOrThrow(UUID projectId) {
@@ -254,17 +530,17 @@ public class ProjectService {
         return p;
     }
 
-    private void inheritMembers(UUID parentId, UUID childId, UUID creatorId) {
-        List<ProjectMember> parentMembers = projectMemberRepository.findAllByProjectId(parentId);
-        List<ProjectMember> childMembers = parentMembers.stream()
-                .filter(pm -> !pm.getUserId().equals(creatorId)) // Creator already added
-                .map(pm -> ProjectMember.builder()
-                        .projectId(childId)
-                        .userId(pm.getUserId())
-                        .role(pm.getRole()) // Inherit Role
-                        .build())
-                .collect(Collectors.toList());
-        projectMemberRepository.saveAll(childMembers);
+    /**
+     * Only runs when the guarded insert wrote nothing, to report why
+     */
+    private ResponseStatusException explainCreateFailure(UUID userId, UUID workspaceId, UUID parentId) {
+        if (workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, userId).isEmpty()) {
+            return new ResponseStatusException(HttpStatus.FORBIDDEN, "Not a member of this workspace");
+        }
+        if (parentId != null && !projectRepository.existsByIdAndWorkspaceId(parentId, workspaceId)) {
+            return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Parent project not found in this workspace");
+        }
+        return new ResponseStatusException(HttpStatus.FORBIDDEN, "You don't have access to the parent project");
     }
 
     /**
@@ -289,15 +565,36 @@ public class ProjectService {
             return; // Access Granted
         }
 
-        // 2. Check Project Level
-        ProjectMember pm = projectMemberRepository.findByProjectIdAndUserId(projectId, userId)
+        // 2. Check Project Level (explicit or inherited grant)
+        String projectRole = projectMemberRepository.findEffectiveRole(projectId, userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.FORBIDDEN, "Not a project member"));
 
-        if (!allowedProjectRoles.contains(pm.getRole())) {
+        if (!allowedProjectRoles.contains(projectRole)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Insufficient Project Permissions");
         }
     }
 
+    private void checkVersion(Project project, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(project.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Project has been modified");
+        }
+    }
+
+    // Flush now so a lost race surfaces here as 412 rather than at commit
+    private Project saveVersioned(Project project) {
+        try {
+            return projectRepository.saveAndFlush(project);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Project has been modified");
+        }
+    }
+
+    private boolean isComputedInheritance(UUID workspaceId) {
+        return workspaceRepository.findById(workspaceId)
+                .map(w -> "COMPUTED".equals(w.getMemberInheritance()))
+                .orElse(false);
+    }
+
     private void validateRole(String role) {
         if (!List.of("ADMIN", "EDITOR", "VIEWER").contains(role)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid role");
@@ -312,6 +609,76 @@ public class ProjectService {
                 .parentId(p.getParentId())
                 .role(role)
                 .isArchived(p.isArchived())
+                .descendantCount(p.getDescendantCount())
+                .memberCount(p.getMemberCount())
+                .version(p.getVersion())
                 .build();
     }
+
+    /**
+     * Flattens a request tree into projects / project_hierarchy / project_members rows
+     */
+    private static class TreeRows {
+        private final UUID workspaceId;
+        private final UUID userId;
+        private final List<ProjectMember> inherited;
+
+        private final List<Object[]> projects = new ArrayList<>();
+        private final List<Object[]> parentLinks = new ArrayList<>();
+        private final List<Object[]> members = new ArrayList<>();
+        private final List<BulkCreateProjectsResponse.CreatedProject> created = new ArrayList<>();
+        private final List<UUID> topLevelIds = new ArrayList<>();
+
+        TreeRows(UUID workspaceId, UUID userId, List<ProjectMember> inherited) {
+            this.workspaceId = workspaceId;
+            this.userId = userId;
+            this.inherited = inherited;
+        }
+
+        /**
+         * @param topLevel whether parentId is an existing project (or null) rather than a new one
+         * @return size of the subtree rooted at this node (including itself)
+         */
+        int add(BulkCreateProjectsRequest.Node node, UUID parentId, boolean topLevel) {
+            if (projects.size() >= MAX_BULK_PROJECTS) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Too many projects in one request (max " + MAX_BULK_PROJECTS + ")");
+            }
+            if (node.getName() == null || node.getName().isBlank()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Name is required");
+            }
+
+            UUID id = UuidV7.next();
+            Object[] projectRow = new Object[] { id, workspaceId, parentId, node.getName(), node.getColor(), userId,
+                    0, 1 + inherited.size() };
+            projects.add(projectRow);
+            created.add(BulkCreateProjectsResponse.CreatedProject.builder()
+                    .ref(node.getRef())
+                    .id(id)
+                    .parentId(parentId)
+                    .name(node.getName())
+                    .build());
+            if (topLevel) {
+                topLevelIds.add(id);
+            }
+
+            // Only the parent link; Postgres derives the closure rows from these
+            parentLinks.add(new Object[] { id, parentId });
+
+            // Creator owns everything; parent members are snapshot-inherited
+            members.add(new Object[] { id, userId, "OWNER" });
+            for (ProjectMember pm : inherited) {
+                members.add(new Object[] { id, pm.getUserId(), pm.getRole() });
+            }
+
+            int size = 1;
+            if (node.getChildren() != null) {
+                for (BulkCreateProjectsRequest.Node child : node.getChildren()) {
+                    size += add(child, id, false);
+                }
+            }
+            projectRow[6] = size - 1; // descendant_count
+            return size;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.fractal.backend.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fractal.backend.config.ReadYourWritesTracker;
+
+/**
+ * Single-flight for the hot listings. After a change, every client in the
+ * workspace refetches at the same moment; the first caller runs the query and
+ * those arriving while it runs wait for its result instead of running the same
+ * query again. Nothing is kept once the query returns, so this is not a cache.
+ *
+ * Keys carry a version: the number of read-write transactions this instance has
+ * committed (counted as the transaction manager's execution listener). A read
+ * that starts after a commit never joins one that may have started before it,
+ * so nobody gets a list older than their own write. Keys also say whether the
+ * caller is pinned to the primary (ReadYourWritesTracker): a leader's read goes
+ * wherever the leader's own reads go, so a pinned caller only joins a pinned
+ * leader and never gets a replica's view of their write.
+ *
+ * Callers must not be in a transaction: only the leader runs its read, in a
+ * read-only transaction of its own, so followers wait without holding a pooled
+ * connection. Every caller gets the same immutable list.
+ */
+@Component
+public class ReadCoalescer implements TransactionExecutionListener {
+
+    record Key(String method, UUID workspaceId, long version, boolean primary, Object scope) {
+    }
+
+    private final AtomicLong committedWrites = new AtomicLong();
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // Looked up on first use: the transaction manager itself lists this bean as an execution listener
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final ObjectProvider<ReadYourWritesTracker> readYourWrites; // Only with read replicas
+    private volatile TransactionTemplate readOnly;
+
+    public ReadCoalescer(ObjectProvider<PlatformTransactionManager> transactionManager,
+            ObjectProvider<ReadYourWritesTracker> readYourWrites) {
+        this.transactionManager = transactionManager;
+        this.readYourWrites = readYourWrites;
+    }
+
+    // scope: whatever besides the workspace changes the result (null when every caller sees the same rows)
+    @SuppressWarnings("unchecked")
+    public <E> List<E> coalesce(String method, UUID workspaceId, Object scope, Supplier<List<E>> read) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("ReadCoalescer must be called outside a transaction");
+        }
+        ReadYourWritesTracker tracker = readYourWrites.getIfAvailable();
+        boolean primary = tracker != null && tracker.isCurrentUserSticky();
+        Key key = new Key(method, workspaceId, committedWrites.get(), primary, scope);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            return (List<E>) await(running);
+        }
+        try {
+            List<E> result = List.copyOf(inReadOnlyTransaction(read));
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private <T> T inReadOnlyTransaction(Supplier<T> read) {
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        if (manager == null) {
+            return read.get();
+        }
+        TransactionTemplate template = readOnly;
+        if (template == null) {
+            template = new TransactionTemplate(manager);
+            template.setReadOnly(true);
+            readOnly = template;
+        }
+        return template.execute(status -> read.get());
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()) {
+            committedWrites.incrementAndGet();
+        }
+    }
+
+    // Followers see the leader's exception (e.g. a 403 from inside the read) as their own
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -2,25 +2,39 @@ package com.fractal.backend.service;
 
 import java.text.Normalizer;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.fractal.backend.config.ShardContext;
+import com.fractal.backend.config.ShardDirectory;
+import com.fractal.backend.dto.BulkInviteMembersRequest;
+import com.fractal.backend.dto.BulkMembersResponse;
+import com.fractal.backend.dto.WorkspaceAccessView;
 import com.fractal.backend.dto.WorkspaceMemberDTO;
-import com.fractal.backend.dto.WorkspaceResponse;
 import com.fractal.backend.model.User;
 import com.fractal.backend.model.Workspace;
 import com.fractal.backend.model.WorkspaceInvitation;
 import com.fractal.backend.model.WorkspaceMember;
+import com.fractal.backend.repository.ListingRepository;
+import com.fractal.backend.repository.ProjectMemberRepository;
 import com.fractal.backend.repository.UserRepository;
+import com.fractal.backend.repository.WorkspaceBatchRepository;
 import com.fractal.backend.repository.WorkspaceInvitationRepository;
 import com.fractal.backend.repository.WorkspaceMemberRepository;
 import com.fractal.backend.repository.WorkspaceRepository;
@@ -35,17 +49,27 @@ public class WorkspaceService {
     private final WorkspaceMemberRepository workspaceMemberRepository;
     private final WorkspaceInvitationRepository workspaceInvitationRepository;
     private final UserRepository userRepository;
-    private final EmailService emailService; // Inject Email Service
+    private final ProjectMemberRepository projectMemberRepository;
+    private final WorkspaceBatchRepository workspaceBatchRepository;
+    private final MemberSearchCache memberSearchCache;
+    private final ListingRepository listingRepository;
+    private final ReadCoalescer readCoalescer;
+    private final ObjectProvider<ShardDirectory> shardDirectory; // Only when app.sharding.enabled
+    private final ApplicationEventPublisher eventPublisher;
+
+    static final int MAX_BULK_MEMBERS = 1000;
+    static final int MAX_SEARCH_RESULTS = 50;
 
     private static final Pattern NONLATIN = Pattern.compile("[^\\w-]");
     private static final Pattern WHITESPACE = Pattern.compile("[\\s]");
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
 
     @Transactional
     public Workspace createWorkspace(UUID userId, String name) {
         String slug = toSlug(name);
         String originalSlug = slug;
         int count = 1;
-        while (workspaceRepository.existsBySlug(slug)) {
+        while (isSlugTaken(slug)) {
             slug = originalSlug + "-" + count;
             count++;
         }
@@ -57,6 +81,7 @@ public class WorkspaceService {
                 .planType("FREE")
                 .build();
         Workspace savedWorkspace = workspaceRepository.save(workspace);
+        shardDirectory.ifAvailable(directory -> directory.register(savedWorkspace.getId(), savedWorkspace.getSlug()));
 
         WorkspaceMember member = WorkspaceMember.builder()
                 .workspaceId(savedWorkspace.getId())
@@ -67,42 +92,125 @@ public class WorkspaceService {
         return savedWorkspace;
     }
 
-    public List<WorkspaceResponse> getWorkspacesForUser(UUID userId) {
-        List<Workspace> workspaces = workspaceRepository.findAllActiveWorkspacesByUserId(userId);
-
-        return workspaces.stream().map(w -> {
-            WorkspaceMember member = workspaceMemberRepository
-                    .findByWorkspaceIdAndUserId(w.getId(), userId).orElse(null);
-            return WorkspaceResponse.builder()
-                    .id(w.getId())
-                    .name(w.getName())
-                    .slug(w.getSlug())
-                    .role(member != null ? member.getRole() : "UNKNOWN")
-                    .build();
-        }).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<WorkspaceAccessView> getWorkspacesForUser(UUID userId) {
+        ShardDirectory directory = shardDirectory.getIfAvailable();
+        return directory == null
+                ? workspaceRepository.findAllActiveWorkspacesByUserId(userId)
+                : directory.fromEveryDatabase(() -> workspaceRepository.findAllActiveWorkspacesByUserId(userId));
     }
 
+    // No transaction here: ReadCoalescer gives the shared read its own, so callers
+    // waiting on it don't pin a connection
     public List<WorkspaceMemberDTO> getWorkspaceMembers(UUID requesterId, UUID workspaceId) {
         // All members (OWNER, ADMIN, MEMBER) can view workspace members
         validateRole(workspaceId, requesterId, List.of("OWNER", "ADMIN", "MEMBER"));
-        return workspaceMemberRepository.findMembersByWorkspaceId(workspaceId);
+        // Every role sees the same list, so concurrent callers in the workspace share one query
+        return readCoalescer.coalesce("getWorkspaceMembers", workspaceId, null,
+                () -> listingRepository.findWorkspaceMembers(workspaceId));
+    }
+
+    /**
+     * Typeahead over workspace members by email or name, best match first.
+     * Queries of 1-2 characters are prefix matches served from an in-memory
+     * cache; longer ones are substring matches backed by the trigram indexes.
+     */
+    @Transactional(readOnly = true)
+    public List<WorkspaceMemberDTO> searchMembers(UUID requesterId, UUID workspaceId, String query, int limit) {
+        validateRole(workspaceId, requesterId, List.of("OWNER", "ADMIN", "MEMBER"));
+        String q = query == null ? "" : query.trim().toLowerCase(Locale.ENGLISH);
+        if (q.isEmpty()) {
+            return List.of();
+        }
+        int k = Math.min(Math.max(limit, 1), MAX_SEARCH_RESULTS);
+
+        String escaped = q.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        if (memberSearchCache.isCacheable(q)) {
+            return memberSearchCache.get(workspaceId, q, k,
+                    () -> workspaceMemberRepository.searchMembers(workspaceId, escaped + "%", q, Limit.of(k)));
+        }
+        return workspaceMemberRepository.searchMembers(workspaceId, "%" + escaped + "%", q, Limit.of(k));
     }
 
+    /**
+     * expectedVersion comes from If-Match; null skips the precondition. A concurrent
+     * commit between read and write is still caught by the versioned UPDATE.
+     */
     @Transactional
-    public Workspace updateWorkspace(UUID userId, UUID workspaceId, String newName, String newSlug) {
+    public Workspace updateWorkspace(UUID userId, UUID workspaceId, String newName, String newSlug,
+            Long expectedVersion) {
         validateRole(workspaceId, userId, List.of("OWNER", "ADMIN"));
         Workspace workspace = getWorkspaceOrThrow(workspaceId);
+        checkVersion(workspace, expectedVersion);
 
         if (newName != null && !newName.isBlank()) {
             workspace.setName(newName);
         }
-        if (newSlug != null && !newSlug.isBlank() && !newSlug.equals(workspace.getSlug())) {
-            if (workspaceRepository.existsBySlug(newSlug)) {
-                throw new ResponseStatusException(HttpStatus.CONFLICT, "Slug already exists");
+        if (newSlug != null && !newSlug.isBlank()) {
+            changeSlug(workspace, newSlug);
+        }
+        return saveVersioned(workspace);
+    }
+
+    /**
+     * JSON Merge Patch (RFC 7396) for name and slug. Both are required, so an
+     * explicit null is rejected rather than clearing them.
+     */
+    @Transactional
+    public Workspace patchWorkspace(UUID userId, UUID workspaceId, Map<String, Object> patch, Long expectedVersion) {
+        validateRole(workspaceId, userId, List.of("OWNER", "ADMIN"));
+        Workspace workspace = getWorkspaceOrThrow(workspaceId);
+        checkVersion(workspace, expectedVersion);
+
+        patch.forEach((field, value) -> {
+            if (!List.of("name", "slug").contains(field)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Field cannot be patched: " + field);
+            }
+            if (!(value instanceof String text) || text.isBlank()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, field + " must be a non-empty string");
+            }
+            if ("name".equals(field)) {
+                workspace.setName(text);
+            } else {
+                changeSlug(workspace, text);
             }
-            workspace.setSlug(toSlug(newSlug));
+        });
+        return saveVersioned(workspace);
+    }
+
+    private void changeSlug(Workspace workspace, String newSlug) {
+        if (newSlug.equals(workspace.getSlug())) {
+            return;
+        }
+        if (isSlugTaken(newSlug)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Slug already exists");
+        }
+        workspace.setSlug(toSlug(newSlug));
+        shardDirectory.ifAvailable(directory -> directory.updateSlug(workspace.getId(), workspace.getSlug()));
+    }
+
+    // With sharding on, the slug must also be free on every other database
+    private boolean isSlugTaken(String slug) {
+        if (workspaceRepository.existsBySlug(slug)) {
+            return true;
+        }
+        ShardDirectory directory = shardDirectory.getIfAvailable();
+        return directory != null && directory.isSlugTaken(slug);
+    }
+
+    private void checkVersion(Workspace workspace, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(workspace.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Workspace has been modified");
+        }
+    }
+
+    // Flush now so a lost race surfaces here as 412 rather than at commit
+    private Workspace saveVersioned(Workspace workspace) {
+        try {
+            return workspaceRepository.saveAndFlush(workspace);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Workspace has been modified");
         }
-        return workspaceRepository.save(workspace);
     }
 
     @Transactional
@@ -127,6 +235,7 @@ public class WorkspaceService {
 
         targetMember.setRole(newRole.toUpperCase());
         workspaceMemberRepository.save(targetMember);
+        memberSearchCache.invalidate(workspaceId);
     }
 
     // --- MEMBER MANAGEMENT (REMOVE MEMBER) ---
@@ -157,6 +266,45 @@ public class WorkspaceService {
         }
 
         workspaceMemberRepository.delete(target);
+        memberSearchCache.invalidate(workspaceId);
+    }
+
+    // --- MEMBER INHERITANCE ---
+    /**
+     * Switches how sub-projects inherit members.
+     * SNAPSHOT copies parent members into each new sub-project; COMPUTED stores
+     * only explicit grants and resolves access through project_hierarchy.
+     * Existing rows are compacted or materialized so effective access is unchanged;
+     * a SNAPSHOT tree where a child lost a member its parent still has cannot be
+     * expressed under COMPUTED (there are no deny rows), so that switch is refused.
+     */
+    @Transactional
+    public Workspace setMemberInheritance(UUID userId, UUID workspaceId, String mode) {
+        validateRole(workspaceId, userId, List.of("OWNER"));
+        Workspace workspace = getWorkspaceOrThrow(workspaceId);
+
+        String newMode = mode == null ? "" : mode.toUpperCase(Locale.ENGLISH);
+        if (!List.of("SNAPSHOT", "COMPUTED").contains(newMode)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid mode. Allowed modes are: SNAPSHOT, COMPUTED");
+        }
+        if (newMode.equals(workspace.getMemberInheritance())) {
+            return workspace;
+        }
+
+        if ("COMPUTED".equals(newMode)) {
+            if (projectMemberRepository.existsParentGrantMissingOnChild(workspaceId)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Some sub-projects exclude members of their parent project, which COMPUTED inheritance would grant again");
+            }
+            projectMemberRepository.deleteRedundantInheritedMembers(workspaceId);
+        } else {
+            projectMemberRepository.materializeInheritedMembers(workspaceId);
+        }
+        projectMemberRepository.refreshMemberCounts(workspaceId);
+
+        workspace.setMemberInheritance(newMode);
+        return workspaceRepository.save(workspace);
     }
 
     // --- DELETE WORKSPACE ---
@@ -211,11 +359,99 @@ public class WorkspaceService {
                 .build();
 
         workspaceInvitationRepository.save(invitation);
-        emailService.sendWorkspaceInvite(email, workspace.getName(), token);
+        // Mailed by EmailService once the invitation is committed
+        eventPublisher.publishEvent(new InvitationsCreatedEvent(workspace.getName(), Map.of(email, token)));
+    }
+
+    /**
+     * Invites many people at once. Permission and role checks run once for the
+     * batch; users, memberships and old invitations are resolved with one query
+     * each, and invitations are written in a single JDBC batch. Bad rows are
+     * reported per row instead of failing the request.
+     */
+    @Transactional
+    public BulkMembersResponse inviteMembers(UUID requesterId, UUID workspaceId,
+            List<BulkInviteMembersRequest.Invite> invites) {
+        if (invites.size() > MAX_BULK_MEMBERS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many invitations in one request (max " + MAX_BULK_MEMBERS + ")");
+        }
+        WorkspaceMember requester = workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, requesterId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.FORBIDDEN,
+                        "Access denied: Not a member of this workspace"));
+        if (!List.of("OWNER", "ADMIN").contains(requester.getRole())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Insufficient permissions");
+        }
+        Workspace workspace = getWorkspaceOrThrow(workspaceId);
+
+        // 1. Per-row validation (format, role, duplicates inside the batch). Addresses are
+        // compared lower-cased, so "Ann@x.io" and "ann@x.io" are one invitation
+        List<BulkMembersResponse.Result> results = new ArrayList<>();
+        Map<String, BulkMembersResponse.Result> pending = new LinkedHashMap<>();
+        for (BulkInviteMembersRequest.Invite invite : invites) {
+            String email = invite.getEmail() == null ? null : invite.getEmail().trim().toLowerCase(Locale.ROOT);
+            String role = invite.getRole() == null ? "MEMBER" : invite.getRole().toUpperCase(Locale.ENGLISH);
+            BulkMembersResponse.Result result = BulkMembersResponse.Result.builder().email(email).role(role).build();
+            results.add(result);
+
+            if (email == null || !EMAIL.matcher(email).matches()) {
+                result.setStatus("INVALID_EMAIL");
+            } else if (!List.of("ADMIN", "MEMBER").contains(role)) {
+                result.setStatus("INVALID_ROLE");
+            } else if ("ADMIN".equals(role) && !"OWNER".equals(requester.getRole())) {
+                result.setStatus("FORBIDDEN_ROLE");
+                result.setMessage("Only workspace owners can invite admins");
+            } else if (pending.putIfAbsent(email, result) != null) {
+                result.setStatus("DUPLICATE");
+            }
+        }
+
+        // 2. Skip people who are already members (two IN queries)
+        if (!pending.isEmpty()) {
+            List<User> existingUsers = userRepository.findAllByLowerEmailIn(pending.keySet());
+            if (!existingUsers.isEmpty()) {
+                Map<UUID, String> emailByUserId = existingUsers.stream()
+                        .collect(Collectors.toMap(User::getId, u -> u.getEmail().toLowerCase(Locale.ROOT)));
+                workspaceMemberRepository.findAllByWorkspaceIdAndUserIdIn(workspaceId, emailByUserId.keySet())
+                        .forEach(m -> {
+                            BulkMembersResponse.Result r = pending.remove(emailByUserId.get(m.getUserId()));
+                            if (r != null) {
+                                r.setUserId(m.getUserId());
+                                r.setStatus("ALREADY_MEMBER");
+                            }
+                        });
+            }
+        }
+
+        // 3. Replace older invitations and write the new ones in one batch
+        if (!pending.isEmpty()) {
+            workspaceInvitationRepository.deleteAllByWorkspaceIdAndEmailIn(workspaceId, pending.keySet());
+
+            OffsetDateTime expiresAt = OffsetDateTime.now().plusDays(7);
+            Map<String, String> tokens = new LinkedHashMap<>();
+            List<Object[]> rows = new ArrayList<>(pending.size());
+            pending.forEach((email, result) -> {
+                String token = UUID.randomUUID().toString();
+                tokens.put(email, token);
+                rows.add(new Object[] { workspaceId, email, result.getRole(), token, expiresAt, requesterId });
+                result.setStatus("INVITED");
+            });
+            workspaceBatchRepository.insertInvitations(rows);
+
+            eventPublisher.publishEvent(new InvitationsCreatedEvent(workspace.getName(), tokens));
+        }
+
+        return BulkMembersResponse.of(results, "INVITED");
     }
 
     @Transactional
     public WorkspaceMember acceptInvitation(UUID userId, String token) {
+        // The token doesn't say which shard holds the workspace; switch before the first statement
+        ShardDirectory directory = shardDirectory.getIfAvailable();
+        if (directory != null) {
+            ShardContext.set(directory.shardOfInvitation(token));
+        }
+
         WorkspaceInvitation invitation = workspaceInvitationRepository.findByToken(token)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid or expired invitation"));
 
@@ -237,6 +473,7 @@ public class WorkspaceService {
 
         WorkspaceMember savedMember = workspaceMemberRepository.save(member);
         workspaceInvitationRepository.delete(invitation);
+        memberSearchCache.invalidate(invitation.getWorkspaceId());
         return savedMember;
     }
 
@@ -317,5 +554,6 @@ public class WorkspaceService {
         workspaceMemberRepository.save(currentOwnerMember);
         workspaceMemberRepository.save(newOwnerMember);
         workspaceRepository.save(workspace);
+        memberSearchCache.invalidate(workspaceId);
     }
 }
\ No newline at end of file
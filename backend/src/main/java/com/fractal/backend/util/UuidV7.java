@@ -0,0 +1,33 @@
+package com.fractal.backend.util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Time-ordered UUIDs (RFC 9562 version 7) for ids assigned outside Hibernate,
+ * e.g. rows written through JDBC batches. 48 bits of Unix milliseconds come
+ * first, so new keys land on the right-hand edge of the primary key B-tree
+ * instead of on random pages.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private UuidV7() {
+    }
+
+    public static UUID next() {
+        return next(System.currentTimeMillis());
+    }
+
+    static UUID next(long epochMillis) {
+        long randA = RANDOM.nextInt(1 << 12);
+        long randB = RANDOM.nextLong();
+
+        long msb = (epochMillis & 0xFFFF_FFFF_FFFFL) << 16 // unix_ts_ms
+                | 0x7000L // version 7
+                | randA;
+        long lsb = (randB & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L; // variant 10
+        return new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,78 @@
+-- Soft-deleted rows are moved out of the live tables by ArchiveService once they
+-- are older than app.archive.retention, so hot indexes only hold live rows.
+
+-- 1. Partial indexes
+-- The archive job scans for old tombstones; live rows (deleted_at IS NULL) are the vast
+-- majority and don't need to be in this index at all.
+DROP INDEX idx_projects_deleted_at;
+CREATE INDEX idx_projects_deleted_at ON projects(deleted_at) WHERE deleted_at IS NOT NULL;
+CREATE INDEX idx_workspaces_deleted_at ON workspaces(deleted_at) WHERE deleted_at IS NOT NULL;
+
+-- "My workspaces" starts from the user's memberships and keeps live workspaces only;
+-- the covering partial index answers the workspace side without touching tombstones.
+CREATE INDEX idx_workspace_members_user ON workspace_members(user_id) INCLUDE (role);
+CREATE INDEX idx_workspaces_live ON workspaces(id) INCLUDE (name, slug, version) WHERE deleted_at IS NULL;
+
+-- 2. Archive tables
+-- Same columns as the live tables plus archived_at. No foreign keys, so archived
+-- rows never block deleting users or cascade from anything.
+CREATE TABLE workspaces_archive (
+    id UUID PRIMARY KEY,
+    owner_id UUID,
+    name VARCHAR(100) NOT NULL,
+    slug VARCHAR(100),
+    plan_type VARCHAR(50),
+    stripe_customer_id VARCHAR(255),
+    created_at TIMESTAMPTZ,
+    updated_at TIMESTAMPTZ,
+    deleted_at TIMESTAMPTZ,
+    member_inheritance VARCHAR(20) NOT NULL,
+    version BIGINT NOT NULL,
+    archived_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE TABLE workspace_members_archive (
+    workspace_id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    role VARCHAR(20),
+    joined_at TIMESTAMPTZ,
+    PRIMARY KEY (workspace_id, user_id)
+);
+
+CREATE TABLE projects_archive (
+    id UUID PRIMARY KEY,
+    workspace_id UUID NOT NULL,
+    parent_id UUID,
+    name VARCHAR(255) NOT NULL,
+    color VARCHAR(7),
+    is_archived BOOLEAN,
+    created_by UUID NOT NULL,
+    created_at TIMESTAMPTZ,
+    updated_at TIMESTAMPTZ,
+    deleted_at TIMESTAMPTZ,
+    descendant_count INT NOT NULL,
+    member_count INT NOT NULL,
+    version BIGINT NOT NULL,
+    archived_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_projects_archive_workspace ON projects_archive(workspace_id);
+
+CREATE TABLE project_hierarchy_archive (
+    ancestor_id UUID NOT NULL,
+    descendant_id UUID NOT NULL,
+    depth INT NOT NULL,
+    PRIMARY KEY (ancestor_id, descendant_id)
+);
+
+CREATE INDEX idx_project_hierarchy_archive_descendant ON project_hierarchy_archive(descendant_id);
+
+CREATE TABLE project_members_archive (
+    project_id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    role VARCHAR(20) NOT NULL,
+    is_favorite BOOLEAN,
+    notifications_enabled BOOLEAN,
+    created_at TIMESTAMPTZ,
+    PRIMARY KEY (project_id, user_id)
+);
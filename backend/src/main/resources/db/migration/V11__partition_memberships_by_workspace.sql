@@ -0,0 +1,175 @@
+-- Hash-partitions workspace_members, project_members and project_hierarchy by workspace_id
+-- (16 partitions). Vacuum, index maintenance and bloat are handled per partition, and
+-- every statement that filters on workspace_id touches a single partition.
+--
+-- A partitioned table's primary key must contain the partition key, so project_members and
+-- project_hierarchy gain a workspace_id column. Composite foreign keys to
+-- projects(workspace_id, id) make sure it always matches the project's workspace.
+--
+-- The tables are rebuilt and copied in this one transaction, which blocks writes to them
+-- while it runs. On large installations run this migration in a maintenance window.
+
+-- 1. Target for the composite foreign keys; also serves every workspace_id lookup on projects
+ALTER TABLE projects ADD CONSTRAINT uq_projects_workspace_id UNIQUE (workspace_id, id);
+DROP INDEX idx_projects_workspace;
+
+-- 2. Partitioned tables
+CREATE TABLE workspace_members_partitioned (
+    workspace_id UUID NOT NULL REFERENCES workspaces(id) ON DELETE CASCADE,
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    role VARCHAR(20) DEFAULT 'MEMBER',
+    joined_at TIMESTAMPTZ DEFAULT NOW(),
+    PRIMARY KEY (workspace_id, user_id)
+) PARTITION BY HASH (workspace_id);
+
+CREATE TABLE project_hierarchy_partitioned (
+    workspace_id UUID NOT NULL,
+    ancestor_id UUID NOT NULL,
+    descendant_id UUID NOT NULL,
+    depth INT NOT NULL,
+    PRIMARY KEY (workspace_id, ancestor_id, descendant_id),
+    FOREIGN KEY (workspace_id, ancestor_id) REFERENCES projects(workspace_id, id) ON DELETE CASCADE,
+    FOREIGN KEY (workspace_id, descendant_id) REFERENCES projects(workspace_id, id) ON DELETE CASCADE
+) PARTITION BY HASH (workspace_id);
+
+CREATE TABLE project_members_partitioned (
+    workspace_id UUID NOT NULL,
+    project_id UUID NOT NULL,
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    role VARCHAR(20) NOT NULL DEFAULT 'VIEWER', -- 'OWNER', 'ADMIN', 'EDITOR', 'VIEWER'
+    is_favorite BOOLEAN DEFAULT FALSE,
+    notifications_enabled BOOLEAN DEFAULT TRUE,
+    created_at TIMESTAMPTZ DEFAULT NOW(),
+    PRIMARY KEY (workspace_id, project_id, user_id),
+    FOREIGN KEY (workspace_id, project_id) REFERENCES projects(workspace_id, id) ON DELETE CASCADE
+) PARTITION BY HASH (workspace_id);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE workspace_members_p%s PARTITION OF workspace_members_partitioned '
+                       'FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+        EXECUTE format('CREATE TABLE project_hierarchy_p%s PARTITION OF project_hierarchy_partitioned '
+                       'FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+        EXECUTE format('CREATE TABLE project_members_p%s PARTITION OF project_members_partitioned '
+                       'FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+    END LOOP;
+END $$;
+
+-- 3. Copy (no triggers exist on the new tables yet, so user_project_access is untouched)
+INSERT INTO workspace_members_partitioned (workspace_id, user_id, role, joined_at)
+SELECT workspace_id, user_id, role, joined_at FROM workspace_members;
+
+INSERT INTO project_hierarchy_partitioned (workspace_id, ancestor_id, descendant_id, depth)
+SELECT p.workspace_id, h.ancestor_id, h.descendant_id, h.depth
+FROM project_hierarchy h
+JOIN projects p ON p.id = h.descendant_id;
+
+INSERT INTO project_members_partitioned (workspace_id, project_id, user_id, role, is_favorite,
+                                         notifications_enabled, created_at)
+SELECT p.workspace_id, m.project_id, m.user_id, m.role, m.is_favorite, m.notifications_enabled, m.created_at
+FROM project_members m
+JOIN projects p ON p.id = m.project_id;
+
+-- 4. Swap (dropping the old tables drops their triggers as well)
+DROP TABLE workspace_members;
+DROP TABLE project_hierarchy;
+DROP TABLE project_members;
+
+ALTER TABLE workspace_members_partitioned RENAME TO workspace_members;
+ALTER TABLE project_hierarchy_partitioned RENAME TO project_hierarchy;
+ALTER TABLE project_members_partitioned RENAME TO project_members;
+
+-- 5. Indexes (created on the parent, one per partition)
+-- "My workspaces" / member cascades by user cannot prune and probe every partition
+CREATE INDEX idx_workspace_members_user ON workspace_members(user_id) INCLUDE (role);
+CREATE INDEX idx_project_members_user ON project_members(user_id);
+-- Effective-role lookups walk up from a descendant, nearest first
+CREATE INDEX idx_project_hierarchy_descendant ON project_hierarchy(workspace_id, descendant_id, depth);
+
+-- 6. Archive tables keep the partition key too, so restores write it back unchanged
+ALTER TABLE project_hierarchy_archive ADD COLUMN workspace_id UUID;
+ALTER TABLE project_members_archive ADD COLUMN workspace_id UUID;
+UPDATE project_hierarchy_archive a SET workspace_id = p.workspace_id
+FROM projects_archive p WHERE p.id = a.descendant_id;
+UPDATE project_members_archive a SET workspace_id = p.workspace_id
+FROM projects_archive p WHERE p.id = a.project_id;
+
+-- 7. Access read model (V6): same rules, but closure and membership scans are limited to
+-- the affected workspaces so they run against one partition each
+CREATE OR REPLACE FUNCTION refresh_user_project_access(p_projects UUID[], p_users UUID[]) RETURNS void AS $$
+DECLARE
+    v_workspaces UUID[];
+BEGIN
+    IF p_projects IS NULL OR cardinality(p_projects) = 0 THEN
+        RETURN;
+    END IF;
+
+    DELETE FROM user_project_access a
+    WHERE a.project_id = ANY(p_projects)
+    AND (p_users IS NULL OR a.user_id = ANY(p_users));
+
+    v_workspaces := ARRAY(SELECT DISTINCT workspace_id FROM projects WHERE id = ANY(p_projects));
+
+    INSERT INTO user_project_access (workspace_id, user_id, project_id, role)
+    SELECT DISTINCT ON (h.descendant_id, pm.user_id) d.workspace_id, pm.user_id, h.descendant_id, pm.role
+    FROM project_hierarchy h
+    JOIN projects d ON d.id = h.descendant_id AND d.deleted_at IS NULL
+    JOIN workspaces w ON w.id = d.workspace_id
+    JOIN project_members pm ON pm.workspace_id = h.workspace_id AND pm.project_id = h.ancestor_id
+    WHERE h.workspace_id = ANY(v_workspaces)
+    AND pm.workspace_id = ANY(v_workspaces)
+    AND h.descendant_id = ANY(p_projects)
+    AND (p_users IS NULL OR pm.user_id = ANY(p_users))
+    AND (h.depth = 0 OR w.member_inheritance = 'COMPUTED')
+    ORDER BY h.descendant_id, pm.user_id, h.depth;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION project_members_access_sync() RETURNS trigger AS $$
+DECLARE
+    v_workspaces UUID[];
+    v_projects UUID[];
+    v_users UUID[];
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        SELECT array_agg(DISTINCT workspace_id), array_agg(DISTINCT project_id), array_agg(DISTINCT user_id)
+        INTO v_workspaces, v_projects, v_users FROM new_rows;
+    ELSIF TG_OP = 'DELETE' THEN
+        SELECT array_agg(DISTINCT workspace_id), array_agg(DISTINCT project_id), array_agg(DISTINCT user_id)
+        INTO v_workspaces, v_projects, v_users FROM old_rows;
+    ELSE
+        SELECT array_agg(DISTINCT n.workspace_id), array_agg(DISTINCT n.project_id), array_agg(DISTINCT n.user_id)
+        INTO v_workspaces, v_projects, v_users
+        FROM new_rows n JOIN old_rows o
+        ON o.workspace_id = n.workspace_id AND o.project_id = n.project_id AND o.user_id = n.user_id
+        WHERE o.role IS DISTINCT FROM n.role;
+    END IF;
+
+    IF v_projects IS NOT NULL THEN
+        PERFORM refresh_user_project_access(
+                ARRAY(SELECT DISTINCT h.descendant_id FROM project_hierarchy h
+                      WHERE h.workspace_id = ANY(v_workspaces) AND h.ancestor_id = ANY(v_projects)),
+                v_users);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Statement-level triggers on the partitioned parent see rows from every partition
+CREATE TRIGGER trg_project_members_access_ins AFTER INSERT ON project_members
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION project_members_access_sync();
+CREATE TRIGGER trg_project_members_access_upd AFTER UPDATE ON project_members
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION project_members_access_sync();
+CREATE TRIGGER trg_project_members_access_del AFTER DELETE ON project_members
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION project_members_access_sync();
+
+CREATE TRIGGER trg_project_hierarchy_access_ins AFTER INSERT ON project_hierarchy
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION project_hierarchy_access_sync();
+CREATE TRIGGER trg_project_hierarchy_access_del AFTER DELETE ON project_hierarchy
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION project_hierarchy_access_sync();
+
+-- Planner statistics for the new partitions
+ANALYZE workspace_members;
+ANALYZE project_hierarchy;
+ANALYZE project_members;
@@ -0,0 +1,15 @@
+-- Shard directory (app.sharding.enabled): which database holds each workspace. Only the
+-- global database's copy is read; shards run the same migrations so every database has
+-- the same schema.
+--
+-- Workspaces created before sharding was enabled have no row here and stay in the global
+-- database. The slug is kept here as well so it stays unique across all shards.
+CREATE TABLE workspace_shards (
+    workspace_id UUID PRIMARY KEY,
+    shard_id VARCHAR(32) NOT NULL,
+    slug VARCHAR(100) NOT NULL UNIQUE,
+    created_at TIMESTAMPTZ DEFAULT NOW()
+);
+
+-- Per-shard workspace counts for placing new workspaces
+CREATE INDEX idx_workspace_shards_shard ON workspace_shards(shard_id);
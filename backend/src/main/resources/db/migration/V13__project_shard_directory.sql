@@ -0,0 +1,7 @@
+-- Shard of every project in a sharded workspace (global database, next to workspace_shards).
+-- Project routes carry no workspace id, so requests for them are routed from this table
+-- instead of asking every shard. Projects on the global database have no row.
+CREATE TABLE project_shards (
+    project_id UUID PRIMARY KEY,
+    shard_id VARCHAR(32) NOT NULL
+);
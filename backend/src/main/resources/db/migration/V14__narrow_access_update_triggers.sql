@@ -0,0 +1,36 @@
+-- The projects and workspaces access triggers (V6) fired on every UPDATE and captured full
+-- transition tables, including for the counter and rename updates that run on almost every
+-- write. Postgres rejects column lists on triggers with transition tables, so both become
+-- row-level triggers that only fire for the one column they react to.
+
+-- projects: soft delete hides the project, restore recomputes it
+DROP TRIGGER trg_projects_access_upd ON projects;
+
+CREATE OR REPLACE FUNCTION projects_access_sync() RETURNS trigger AS $$
+BEGIN
+    IF NEW.deleted_at IS NULL THEN
+        PERFORM refresh_user_project_access(ARRAY[NEW.id], NULL);
+    ELSE
+        DELETE FROM user_project_access WHERE workspace_id = NEW.workspace_id AND project_id = NEW.id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_projects_access_upd AFTER UPDATE OF deleted_at ON projects
+    FOR EACH ROW WHEN (OLD.deleted_at IS DISTINCT FROM NEW.deleted_at)
+    EXECUTE FUNCTION projects_access_sync();
+
+-- workspaces: switching inheritance mode changes every project in the workspace
+DROP TRIGGER trg_workspaces_access_upd ON workspaces;
+
+CREATE OR REPLACE FUNCTION workspaces_access_sync() RETURNS trigger AS $$
+BEGIN
+    PERFORM refresh_user_project_access(ARRAY(SELECT id FROM projects WHERE workspace_id = NEW.id), NULL);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_workspaces_access_upd AFTER UPDATE OF member_inheritance ON workspaces
+    FOR EACH ROW WHEN (OLD.member_inheritance IS DISTINCT FROM NEW.member_inheritance)
+    EXECUTE FUNCTION workspaces_access_sync();
@@ -0,0 +1,2 @@
+-- Bulk invitations match invitees to existing users case-insensitively
+CREATE INDEX idx_users_email_lower ON users (lower(email));
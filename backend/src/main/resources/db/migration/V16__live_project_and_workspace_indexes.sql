@@ -0,0 +1,10 @@
+-- Live-only lookup indexes, completing V10's partial indexes.
+
+-- projects: V11 dropped idx_projects_workspace for the (workspace_id, id) constraint, which
+-- also indexes tombstones. Workspace scans and child lookups only want live rows.
+CREATE INDEX idx_projects_live_workspace_parent ON projects(workspace_id, parent_id) WHERE deleted_at IS NULL;
+
+-- workspaces: idx_workspaces_live repeated the primary key. Slug is what live workspaces
+-- are looked up by; the unique constraint still guards every slug, deleted or not.
+DROP INDEX idx_workspaces_live;
+CREATE INDEX idx_workspaces_live_slug ON workspaces(slug) WHERE deleted_at IS NULL;
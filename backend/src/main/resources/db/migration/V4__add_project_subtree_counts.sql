@@ -0,0 +1,26 @@
+-- Denormalized subtree aggregates so tree views don't need COUNT(*) per node.
+-- descendant_count: active (non-deleted) descendants, excluding self
+-- member_count: rows in project_members for this project
+ALTER TABLE projects ADD COLUMN descendant_count INT NOT NULL DEFAULT 0;
+ALTER TABLE projects ADD COLUMN member_count INT NOT NULL DEFAULT 0;
+
+-- Backfill existing rows
+UPDATE projects p
+SET descendant_count = sub.cnt
+FROM (
+    SELECT h.ancestor_id, COUNT(*) AS cnt
+    FROM project_hierarchy h
+    JOIN projects d ON d.id = h.descendant_id
+    WHERE h.depth > 0 AND d.deleted_at IS NULL
+    GROUP BY h.ancestor_id
+) sub
+WHERE p.id = sub.ancestor_id;
+
+UPDATE projects p
+SET member_count = sub.cnt
+FROM (
+    SELECT project_id, COUNT(*) AS cnt
+    FROM project_members
+    GROUP BY project_id
+) sub
+WHERE p.id = sub.project_id;
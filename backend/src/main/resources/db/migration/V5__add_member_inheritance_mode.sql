@@ -0,0 +1,7 @@
+-- How sub-projects get their members:
+--   SNAPSHOT: members are copied into each new child (one explicit row per project)
+--   COMPUTED: effective role comes from the nearest ancestor grant; explicit rows are overrides
+ALTER TABLE workspaces ADD COLUMN member_inheritance VARCHAR(20) NOT NULL DEFAULT 'SNAPSHOT';
+
+-- Effective-role lookups walk up from a descendant, nearest first
+CREATE INDEX idx_project_hierarchy_descendant ON project_hierarchy(descendant_id, depth);
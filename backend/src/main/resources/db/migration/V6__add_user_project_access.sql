@@ -0,0 +1,120 @@
+-- Read model: one row per (user, visible project) with the effective role.
+-- Rebuilt incrementally by statement-level triggers on every membership,
+-- hierarchy, soft-delete and inheritance-mode change, in the same transaction.
+CREATE TABLE user_project_access (
+    workspace_id UUID NOT NULL REFERENCES workspaces(id) ON DELETE CASCADE,
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    project_id UUID NOT NULL REFERENCES projects(id) ON DELETE CASCADE,
+    role VARCHAR(20) NOT NULL,
+    PRIMARY KEY (workspace_id, user_id, project_id) INCLUDE (role)
+);
+
+-- Single-project checks (effective role, parent access)
+CREATE UNIQUE INDEX idx_user_project_access_project ON user_project_access(project_id, user_id) INCLUDE (role);
+
+-- Recomputes access for the given projects, optionally only for some users.
+-- Same rule as before: explicit grant, or (COMPUTED workspaces) the nearest ancestor grant.
+CREATE FUNCTION refresh_user_project_access(p_projects UUID[], p_users UUID[]) RETURNS void AS $$
+BEGIN
+    IF p_projects IS NULL OR cardinality(p_projects) = 0 THEN
+        RETURN;
+    END IF;
+
+    DELETE FROM user_project_access a
+    WHERE a.project_id = ANY(p_projects)
+    AND (p_users IS NULL OR a.user_id = ANY(p_users));
+
+    INSERT INTO user_project_access (workspace_id, user_id, project_id, role)
+    SELECT DISTINCT ON (h.descendant_id, pm.user_id) d.workspace_id, pm.user_id, h.descendant_id, pm.role
+    FROM project_hierarchy h
+    JOIN projects d ON d.id = h.descendant_id AND d.deleted_at IS NULL
+    JOIN workspaces w ON w.id = d.workspace_id
+    JOIN project_members pm ON pm.project_id = h.ancestor_id
+    WHERE h.descendant_id = ANY(p_projects)
+    AND (p_users IS NULL OR pm.user_id = ANY(p_users))
+    AND (h.depth = 0 OR w.member_inheritance = 'COMPUTED')
+    ORDER BY h.descendant_id, pm.user_id, h.depth;
+END;
+$$ LANGUAGE plpgsql;
+
+-- project_members: the changed users, on the changed projects and everything below them
+CREATE FUNCTION project_members_access_sync() RETURNS trigger AS $$
+DECLARE
+    v_projects UUID[];
+    v_users UUID[];
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        SELECT array_agg(DISTINCT project_id), array_agg(DISTINCT user_id) INTO v_projects, v_users FROM new_rows;
+    ELSIF TG_OP = 'DELETE' THEN
+        SELECT array_agg(DISTINCT project_id), array_agg(DISTINCT user_id) INTO v_projects, v_users FROM old_rows;
+    ELSE
+        SELECT array_agg(DISTINCT n.project_id), array_agg(DISTINCT n.user_id) INTO v_projects, v_users
+        FROM new_rows n JOIN old_rows o ON o.project_id = n.project_id AND o.user_id = n.user_id
+        WHERE o.role IS DISTINCT FROM n.role;
+    END IF;
+
+    IF v_projects IS NOT NULL THEN
+        PERFORM refresh_user_project_access(
+                ARRAY(SELECT DISTINCT h.descendant_id FROM project_hierarchy h WHERE h.ancestor_id = ANY(v_projects)),
+                v_users);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_project_members_access_ins AFTER INSERT ON project_members
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION project_members_access_sync();
+CREATE TRIGGER trg_project_members_access_upd AFTER UPDATE ON project_members
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION project_members_access_sync();
+CREATE TRIGGER trg_project_members_access_del AFTER DELETE ON project_members
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION project_members_access_sync();
+
+-- project_hierarchy: new or removed paths change what a descendant inherits
+CREATE FUNCTION project_hierarchy_access_sync() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM refresh_user_project_access(ARRAY(SELECT DISTINCT descendant_id FROM new_rows), NULL);
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM refresh_user_project_access(ARRAY(SELECT DISTINCT descendant_id FROM old_rows), NULL);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_project_hierarchy_access_ins AFTER INSERT ON project_hierarchy
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION project_hierarchy_access_sync();
+CREATE TRIGGER trg_project_hierarchy_access_del AFTER DELETE ON project_hierarchy
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION project_hierarchy_access_sync();
+
+-- projects: soft delete / restore hides or shows a project (counter updates are skipped)
+CREATE FUNCTION projects_access_sync() RETURNS trigger AS $$
+BEGIN
+    PERFORM refresh_user_project_access(
+            ARRAY(SELECT n.id FROM new_rows n JOIN old_rows o ON o.id = n.id
+                  WHERE o.deleted_at IS DISTINCT FROM n.deleted_at),
+            NULL);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_projects_access_upd AFTER UPDATE ON projects
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION projects_access_sync();
+
+-- workspaces: switching inheritance mode changes every project in the workspace
+CREATE FUNCTION workspaces_access_sync() RETURNS trigger AS $$
+BEGIN
+    PERFORM refresh_user_project_access(
+            ARRAY(SELECT p.id FROM projects p
+                  JOIN new_rows n ON n.id = p.workspace_id
+                  JOIN old_rows o ON o.id = n.id
+                  WHERE o.member_inheritance IS DISTINCT FROM n.member_inheritance),
+            NULL);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_workspaces_access_upd AFTER UPDATE ON workspaces
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION workspaces_access_sync();
+
+-- Backfill
+SELECT refresh_user_project_access(ARRAY(SELECT id FROM projects), NULL);
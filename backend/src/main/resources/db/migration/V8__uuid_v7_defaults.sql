@@ -0,0 +1,19 @@
+-- Time-ordered UUIDv7 (RFC 9562) for ids generated inside the database:
+-- 48-bit Unix ms timestamp, version/variant bits, the rest random (pgcrypto).
+-- Application-created rows get v7 ids from Hibernate / UuidV7 instead.
+CREATE FUNCTION uuid_generate_v7() RETURNS uuid AS $$
+DECLARE
+    v_bytes bytea;
+BEGIN
+    v_bytes = substring(int8send(floor(extract(epoch FROM clock_timestamp()) * 1000)::bigint) FROM 3)
+              || gen_random_bytes(10);
+    v_bytes = set_byte(v_bytes, 6, (b'0111' || get_byte(v_bytes, 6)::bit(4))::bit(8)::int);
+    v_bytes = set_byte(v_bytes, 8, (b'10' || get_byte(v_bytes, 8)::bit(6))::bit(8)::int);
+    RETURN encode(v_bytes, 'hex')::uuid;
+END;
+$$ LANGUAGE plpgsql VOLATILE;
+
+ALTER TABLE users ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+ALTER TABLE workspaces ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+ALTER TABLE workspace_invitations ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+ALTER TABLE projects ALTER COLUMN id SET DEFAULT uuid_generate_v7();
@@ -0,0 +1,5 @@
+-- Optimistic locking: Hibernate bumps these on every entity update and adds
+-- "AND version = ?" to the UPDATE, so concurrent edits fail instead of overwriting.
+-- Counter and soft-delete statements in ProjectRepository leave them alone.
+ALTER TABLE projects ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE workspaces ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
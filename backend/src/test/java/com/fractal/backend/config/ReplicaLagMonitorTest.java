@@ -0,0 +1,65 @@
+package com.fractal.backend.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaLagMonitorTest {
+
+    private ReplicaLagMonitor monitor;
+
+    @AfterEach
+    void tearDown() {
+        monitor.destroy();
+    }
+
+    @Test
+    @DisplayName("Replicas within the allowed lag should be healthy, lagging ones not")
+    void check_ShouldKeepReplicasWithinLag() throws Exception {
+        monitor = monitor(Map.of("caught-up", replica(0.0), "behind", replica(30.0)));
+
+        monitor.check();
+
+        assertThat(monitor.healthyReplicas()).containsExactly("caught-up");
+    }
+
+    @Test
+    @DisplayName("A replica whose lag is unknown (no WAL receiver, not a standby) should be unhealthy")
+    void check_UnknownLag_ShouldBeUnhealthy() throws Exception {
+        monitor = monitor(Map.of("stale", replica(null)));
+
+        monitor.check();
+
+        assertThat(monitor.healthyReplicas()).isEmpty();
+    }
+
+    // The constructor's own first check runs in the background; tests call check() themselves
+    private static ReplicaLagMonitor monitor(Map<String, DataSource> replicas) {
+        return new ReplicaLagMonitor(replicas, Duration.ofSeconds(5), Duration.ofHours(1));
+    }
+
+    private static DataSource replica(Double lag) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(true);
+        when(rs.getObject(1, Double.class)).thenReturn(lag);
+        Statement statement = mock(Statement.class);
+        when(statement.executeQuery(anyString())).thenReturn(rs);
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
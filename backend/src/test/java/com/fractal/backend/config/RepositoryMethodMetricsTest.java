@@ -0,0 +1,56 @@
+package com.fractal.backend.config;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.fractal.backend.repository.UserRepository;
+
+class RepositoryMethodMetricsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final RepositoryMethodMetrics metrics = new RepositoryMethodMetrics(
+            new StaticListableBeanFactory(Map.of("meterRegistry", registry))
+                    .getBeanProvider(MeterRegistry.class),
+            UserRepository.class);
+
+    @Test
+    @DisplayName("invoke - Should time every call on one Timer per method and outcome")
+    void invoke_ShouldReuseTimers() throws Throwable {
+        Method findByEmail = UserRepository.class.getMethod("findByEmail", String.class);
+        MethodInvocation ok = invocation(findByEmail);
+        when(ok.proceed()).thenReturn(null);
+        MethodInvocation failing = invocation(findByEmail);
+        when(failing.proceed()).thenThrow(new IllegalStateException());
+
+        metrics.invoke(ok);
+        metrics.invoke(ok);
+        assertThrows(IllegalStateException.class, () -> metrics.invoke(failing));
+
+        Timer success = registry.get("repository.invocations").tag("method", "findByEmail")
+                .tag("outcome", "SUCCESS").timer();
+        Timer error = registry.get("repository.invocations").tag("method", "findByEmail")
+                .tag("outcome", "ERROR").timer();
+        assertThat(success.count()).isEqualTo(2);
+        assertThat(error.count()).isEqualTo(1);
+        assertThat(registry.getMeters()).hasSize(2);
+    }
+
+    private MethodInvocation invocation(Method method) {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getMethod()).thenReturn(method);
+        return invocation;
+    }
+}
@@ -0,0 +1,150 @@
+package com.fractal.backend.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import com.fractal.backend.model.User;
+
+/**
+ * ShardDirectory and the routing DataSource against two real Postgres
+ * instances: a global database and one shard, both migrated with the app's
+ * Flyway scripts.
+ */
+@Testcontainers
+class ShardDirectoryIntegrationTest {
+
+    private static final DockerImageName POSTGRES_IMAGE = DockerImageName.parse("postgres:16");
+    private static final String SHARD = "shard-0";
+
+    @Container
+    private static final PostgreSQLContainer global = new PostgreSQLContainer(POSTGRES_IMAGE);
+
+    @Container
+    private static final PostgreSQLContainer shard = new PostgreSQLContainer(POSTGRES_IMAGE);
+
+    private JdbcTemplate globalJdbc;
+    private JdbcTemplate shardJdbc;
+    private JdbcTemplate routedJdbc;
+    private ShardDirectory directory;
+
+    @BeforeEach
+    void setUp() {
+        DataSource globalDataSource = migrated(global);
+        DataSource shardDataSource = migrated(shard);
+        globalJdbc = new JdbcTemplate(globalDataSource);
+        shardJdbc = new JdbcTemplate(shardDataSource);
+
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ShardRoutingDataSource.GLOBAL, globalDataSource);
+        targets.put(SHARD, shardDataSource);
+        routing.setTargetDataSources(targets);
+        routing.afterPropertiesSet();
+        DataSource routed = new LazyConnectionDataSourceProxy(routing);
+        routedJdbc = new JdbcTemplate(routed);
+
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("transactionManager", new DataSourceTransactionManager(routed));
+        directory = new ShardDirectory(globalDataSource, Map.of(SHARD, shardDataSource),
+                beans.getBeanProvider(PlatformTransactionManager.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ShardContext.clear();
+    }
+
+    @Test
+    @DisplayName("Users should be copied to the shards at startup and follow later profile updates")
+    void users_ShouldBeMirroredToShards() {
+        UUID userId = insertUser("ada@example.com", "Ada");
+
+        directory.mirrorAllUsers();
+        assertThat(shardName(userId)).isEqualTo("Ada");
+
+        globalJdbc.update("UPDATE users SET full_name = 'Ada Lovelace' WHERE id = ?", userId);
+        directory.mirrorUser(User.builder().id(userId).email("ada@example.com").fullName("Ada Lovelace")
+                .isActive(true).build());
+        assertThat(shardName(userId)).isEqualTo("Ada Lovelace");
+    }
+
+    @Test
+    @DisplayName("Projects should resolve to their shard from the directory alone")
+    void projects_ShouldResolveThroughDirectory() {
+        UUID projectId = UUID.randomUUID();
+        ShardContext.runOn(SHARD, () -> directory.registerProjects(List.of(projectId)));
+
+        assertThat(directory.shardOfProject(projectId)).isEqualTo(SHARD);
+        assertThat(directory.shardOfProject(UUID.randomUUID())).isEqualTo(ShardRoutingDataSource.GLOBAL);
+        assertThat(globalJdbc.queryForObject("SELECT shard_id FROM project_shards WHERE project_id = ?",
+                String.class, projectId)).isEqualTo(SHARD);
+    }
+
+    @Test
+    @DisplayName("Startup should list projects that already live on a shard")
+    void registerAllProjects_ShouldBackfillDirectory() {
+        UUID userId = insertUser("grace@example.com", "Grace");
+        directory.mirrorAllUsers();
+        UUID workspaceId = shardJdbc.queryForObject(
+                "INSERT INTO workspaces (owner_id, name, slug) VALUES (?, 'W', 'w') RETURNING id", UUID.class, userId);
+        UUID projectId = shardJdbc.queryForObject(
+                "INSERT INTO projects (workspace_id, name, created_by) VALUES (?, 'P', ?) RETURNING id", UUID.class,
+                workspaceId, userId);
+
+        directory.registerAllProjects();
+
+        assertThat(directory.shardOfProject(projectId)).isEqualTo(SHARD);
+    }
+
+    @Test
+    @DisplayName("Reads should fan out to every database through the routing DataSource")
+    void fromEveryDatabase_ShouldQueryGlobalAndShards() {
+        insertUser("linus@example.com", "Linus");
+        directory.mirrorAllUsers();
+
+        List<String> emails = directory.fromEveryDatabase(
+                () -> routedJdbc.queryForList("SELECT email FROM users", String.class));
+
+        assertThat(emails).containsExactly("linus@example.com", "linus@example.com");
+    }
+
+    private UUID insertUser(String email, String name) {
+        return globalJdbc.queryForObject("INSERT INTO users (email, full_name) VALUES (?, ?) RETURNING id",
+                UUID.class, email, name);
+    }
+
+    private String shardName(UUID userId) {
+        return shardJdbc.queryForObject("SELECT full_name FROM users WHERE id = ?", String.class, userId);
+    }
+
+    // Fresh schema per test: clean, then the same migrations the app runs
+    private static DataSource migrated(PostgreSQLContainer container) {
+        DataSource dataSource = new DriverManagerDataSource(container.getJdbcUrl(), container.getUsername(),
+                container.getPassword());
+        Flyway flyway = Flyway.configure().dataSource(dataSource).cleanDisabled(false).load();
+        flyway.clean();
+        flyway.migrate();
+        return dataSource;
+    }
+}
@@ -0,0 +1,90 @@
+package com.fractal.backend.config;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+@ExtendWith(MockitoExtension.class)
+class ShardRoutingInterceptorTest {
+
+    @Mock
+    private ShardDirectory directory;
+
+    private ShardRoutingInterceptor interceptor;
+    private ShardRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new ShardRoutingInterceptor(directory);
+        routing = new ShardRoutingDataSource();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ShardContext.clear();
+    }
+
+    @Test
+    @DisplayName("Workspace requests should route to the workspace's shard until the request completes")
+    void workspaceId_ShouldRouteThroughDirectory() {
+        UUID workspaceId = UUID.randomUUID();
+        when(directory.shardOfWorkspace(workspaceId)).thenReturn("shard-1");
+        MockHttpServletRequest request = request("GET", "/api/workspaces/" + workspaceId + "/members",
+                Map.of("id", workspaceId.toString()));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, null);
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo("shard-1");
+
+        interceptor.afterCompletion(request, response, null, null);
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ShardRoutingDataSource.GLOBAL);
+    }
+
+    @Test
+    @DisplayName("Project requests should route to the shard holding the project")
+    void projectId_ShouldRouteToProjectShard() {
+        UUID projectId = UUID.randomUUID();
+        when(directory.shardOfProject(projectId)).thenReturn("shard-0");
+
+        assertThat(interceptor.resolve(request("PATCH", "/api/projects/" + projectId,
+                Map.of("projectId", projectId.toString())))).isEqualTo("shard-0");
+    }
+
+    @Test
+    @DisplayName("Creating a workspace should place it on a shard")
+    void createWorkspace_ShouldPlaceOnShard() {
+        when(directory.placeNewWorkspace()).thenReturn("shard-1");
+
+        assertThat(interceptor.resolve(request("POST", "/api/workspaces", null))).isEqualTo("shard-1");
+    }
+
+    @Test
+    @DisplayName("Requests without workspace or project ids should stay on the global database")
+    void otherRequests_ShouldUseGlobal() {
+        assertThat(interceptor.resolve(request("GET", "/api/workspaces", null))).isNull();
+        assertThat(interceptor.resolve(request("GET", "/api/workspaces/not-a-uuid", Map.of("id", "not-a-uuid"))))
+                .isNull();
+        verifyNoInteractions(directory);
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, Map<String, String> variables) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (variables != null) {
+            request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, variables);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,63 @@
+package com.fractal.backend.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+
+class SqlMetricsListenerTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final SqlMetricsListener listener = new SqlMetricsListener(
+            new StaticListableBeanFactory(Map.of("meterRegistry", registry))
+                    .getBeanProvider(MeterRegistry.class),
+            Duration.ofMillis(200));
+
+    @AfterEach
+    void tearDown() {
+        SqlRequestStats.end();
+    }
+
+    @Test
+    @DisplayName("shape - Should strip literals and collapse IN lists")
+    void shape_ShouldNormalizeLiterals() {
+        assertThat(SqlMetricsListener.shape("select * from users u1_0 where u1_0.email = 'a@b.c' limit 10"))
+                .isEqualTo("select * from users u1_0 where u1_0.email = ? limit ?");
+        assertThat(SqlMetricsListener.shape("delete from project_members where project_id in (?, ?,\n ?)"))
+                .isEqualTo(SqlMetricsListener.shape("delete from project_members where project_id in (?,?)"));
+    }
+
+    @Test
+    @DisplayName("afterQuery - Should count statements per request and flag repeated shapes")
+    void afterQuery_ShouldDetectRepeatedShapes() {
+        SqlRequestStats stats = SqlRequestStats.begin();
+        for (int i = 0; i < 12; i++) {
+            execute("select * from project_members where project_id = '" + i + "'");
+        }
+        execute("select * from projects where workspace_id = ?");
+
+        assertThat(stats.statements()).isEqualTo(13);
+        assertThat(stats.repeatedShapes(10))
+                .containsExactly(Map.entry("select * from project_members where project_id = ?", 12));
+        assertThat(registry.get("db.statement").tag("type", "select").tag("repository", "none").timer().count())
+                .isEqualTo(13);
+        assertThat(registry.find("db.statement").timers()).hasSize(1);
+    }
+
+    private void execute(String sql) {
+        ExecutionInfo execInfo = new ExecutionInfo();
+        execInfo.setSuccess(true);
+        execInfo.setElapsedTime(1);
+        listener.afterQuery(execInfo, List.of(new QueryInfo(sql)));
+    }
+}
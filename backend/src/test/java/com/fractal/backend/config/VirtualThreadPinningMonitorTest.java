@@ -0,0 +1,60 @@
+package com.fractal.backend.config;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Event;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class VirtualThreadPinningMonitorTest {
+
+    @Name("com.fractal.test.Pinned")
+    static class PinnedEvent extends Event {
+    }
+
+    @Test
+    @DisplayName("site - Should name the innermost frame of our own code")
+    void site_ShouldPickInnermostOwnFrame() throws Exception {
+        RecordedEvent event = record();
+
+        assertThat(VirtualThreadPinningMonitor.site(event.getStackTrace()))
+                .isEqualTo("VirtualThreadPinningMonitorTest.pin");
+    }
+
+    @Test
+    @DisplayName("site - Should fall back to other without a stack trace")
+    void site_NoStackTrace_ShouldBeOther() {
+        assertThat(VirtualThreadPinningMonitor.site(null)).isEqualTo("other");
+    }
+
+    // A real JFR event committed from pin(), read back from the recording file
+    private RecordedEvent record() throws Exception {
+        Path file = Files.createTempFile("pinning", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(PinnedEvent.class).withStackTrace();
+            recording.start();
+            pin();
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().equals("com.fractal.test.Pinned"))
+                    .toList();
+            assertThat(events).hasSize(1);
+            return events.get(0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void pin() {
+        new PinnedEvent().commit();
+    }
+}
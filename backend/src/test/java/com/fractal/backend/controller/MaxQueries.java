@@ -0,0 +1,16 @@
+package com.fractal.backend.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * SQL statement budget for the request a test measures with
+ * {@link QueryRecorder#measure}. Checked by {@link QueryBudgetExtension}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxQueries {
+    int value();
+}
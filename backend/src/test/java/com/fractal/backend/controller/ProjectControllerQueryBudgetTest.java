@@ -0,0 +1,88 @@
+package com.fractal.backend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.MediaType;
+
+class ProjectControllerQueryBudgetTest extends QueryBudgetTestSupport {
+
+    @ParameterizedTest(name = "{0} children")
+    @ValueSource(ints = { 1, 10, 60 })
+    @MaxQueries(3)
+    void getProjects(int size, QueryRecorder queries) throws Exception {
+        Seed seed = seed(size);
+
+        queries.measure(() -> mockMvc.perform(get("/api/workspaces/{workspaceId}/projects", seed.workspaceId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(size + 1));
+    }
+
+    @ParameterizedTest(name = "{0} children")
+    @ValueSource(ints = { 1, 10, 60 })
+    @MaxQueries(2)
+    void getProjectsJson(int size, QueryRecorder queries) throws Exception {
+        Seed seed = seed(size);
+
+        queries.measure(() -> mockMvc.perform(get("/api/workspaces/{workspaceId}/projects/sidebar", seed.workspaceId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(size + 1))
+                .andExpect(jsonPath("$[0].role").value("OWNER"));
+    }
+
+    @ParameterizedTest(name = "{0} members")
+    @ValueSource(ints = { 1, 10, 60 })
+    @MaxQueries(4)
+    void getMembers(int size, QueryRecorder queries) throws Exception {
+        Seed seed = seed(size);
+
+        queries.measure(() -> mockMvc.perform(get("/api/projects/{projectId}/members", seed.rootProjectId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(size + 1));
+    }
+
+    @ParameterizedTest(name = "{0} children")
+    @ValueSource(ints = { 1, 10, 60 })
+    @MaxQueries(1)
+    void createProject(int size, QueryRecorder queries) throws Exception {
+        Seed seed = seed(size);
+
+        queries.measure(() -> mockMvc.perform(post("/api/workspaces/{workspaceId}/projects", seed.workspaceId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Budget\",\"parentId\":\"" + seed.rootProjectId() + "\"}")))
+                .andExpect(status().isOk());
+    }
+
+    @ParameterizedTest(name = "{0} children")
+    @ValueSource(ints = { 1, 10, 60 })
+    @MaxQueries(3)
+    void updateProject(int size, QueryRecorder queries) throws Exception {
+        Seed seed = seed(size);
+
+        queries.measure(() -> mockMvc.perform(put("/api/projects/{projectId}", seed.rootProjectId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Renamed\"}")))
+                .andExpect(status().isOk());
+    }
+
+    // Soft delete of the whole subtree plus the ancestor counters, however big the subtree is
+    @ParameterizedTest(name = "{0} children")
+    @ValueSource(ints = { 1, 10, 60 })
+    @MaxQueries(4)
+    void deleteProject(int size, QueryRecorder queries) throws Exception {
+        Seed seed = seed(size);
+
+        queries.measure(() -> mockMvc.perform(delete("/api/projects/{projectId}", seed.rootProjectId())))
+                .andExpect(status().isNoContent());
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM projects WHERE workspace_id = ? AND deleted_at IS NOT NULL", Integer.class,
+                seed.workspaceId())).isEqualTo(size + 1);
+    }
+}
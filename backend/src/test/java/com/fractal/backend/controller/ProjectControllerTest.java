@@ -1,15 +1,21 @@
 package com.fractal.backend.controller;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,23 +30,32 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fractal.backend.dto.AddProjectMemberRequest;
+import com.fractal.backend.dto.BulkAddProjectMembersRequest;
+import com.fractal.backend.dto.BulkCreateProjectsRequest;
+import com.fractal.backend.dto.BulkCreateProjectsResponse;
+import com.fractal.backend.dto.BulkMembersResponse;
 import com.fractal.backend.dto.CreateProjectRequest;
+import com.fractal.backend.dto.DuplicateProjectRequest;
+import com.fractal.backend.dto.ProjectAccessView;
 import com.fractal.backend.dto.ProjectMemberDTO;
-import com.fractal.backend.dto.ProjectResponse;
 import com.fractal.backend.dto.TransferProjectOwnershipRequest;
 import com.fractal.backend.dto.UpdateProjectMemberRequest;
 import com.fractal.backend.model.Project;
 import com.fractal.backend.model.User;
 import com.fractal.backend.repository.UserRepository;
 import com.fractal.backend.security.JwtAuthenticationFilter;
+import com.fractal.backend.service.ArchiveService;
 import com.fractal.backend.service.JwtService;
 import com.fractal.backend.service.ProjectService;
 
@@ -54,6 +69,9 @@ class ProjectControllerTest {
         @MockitoBean
         private ProjectService projectService;
 
+        @MockitoBean
+        private ArchiveService archiveService;
+
         private final ObjectMapper objectMapper = new ObjectMapper();
 
         @MockitoBean
@@ -139,7 +157,7 @@ class ProjectControllerTest {
         @Test
         @DisplayName("Get Projects - Success")
         void getProjects_Success() throws Exception {
-                ProjectResponse response = ProjectResponse.builder().id(projectId).name("Demo").build();
+                ProjectAccessView response = new ProjectAccessView(projectId, "Demo", null, null, "OWNER", false, 0, 1, 0);
                 when(projectService.getProjects(userId, workspaceId)).thenReturn(List.of(response));
 
                 mockMvc.perform(get("/api/workspaces/{workspaceId}/projects", workspaceId)
@@ -148,6 +166,21 @@ class ProjectControllerTest {
                                 .andExpect(jsonPath("$.length()").value(1));
         }
 
+        @Test
+        @DisplayName("Get Projects Sidebar - Should stream the JSON built by the database as is")
+        void getProjectsJson_ShouldStreamBytes() throws Exception {
+                String json = "[{\"id\":\"" + projectId + "\",\"name\":\"Demo\"}]";
+                doAnswer(i -> {
+                        i.<OutputStream>getArgument(2).write(json.getBytes(StandardCharsets.UTF_8));
+                        return null;
+                }).when(projectService).writeProjectsJson(eq(userId), eq(workspaceId), any());
+
+                mockMvc.perform(get("/api/workspaces/{workspaceId}/projects/sidebar", workspaceId))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                                .andExpect(content().string(json));
+        }
+
         // ==================================================================================
         // 3. UPDATE PROJECT PUT /api/projects/{projectId}
         // ==================================================================================
@@ -160,7 +193,7 @@ class ProjectControllerTest {
                 request.setColor("#FFFFFF");
 
                 Project mockProject = Project.builder().id(projectId).name("Updated Name").build();
-                when(projectService.updateProject(userId, projectId, "Updated Name", "#FFFFFF"))
+                when(projectService.updateProject(userId, projectId, "Updated Name", "#FFFFFF", null))
                                 .thenReturn(mockProject);
 
                 mockMvc.perform(put("/api/projects/{projectId}", projectId)
@@ -177,7 +210,7 @@ class ProjectControllerTest {
                 CreateProjectRequest request = new CreateProjectRequest();
                 request.setName("Hacked");
 
-                when(projectService.updateProject(any(), any(), any(), any()))
+                when(projectService.updateProject(any(), any(), any(), any(), any()))
                                 .thenThrow(new ResponseStatusException(HttpStatus.FORBIDDEN,
                                                 "Insufficient permissions"));
 
@@ -188,6 +221,53 @@ class ProjectControllerTest {
                                 .andExpect(status().isForbidden());
         }
 
+        @Test
+        @DisplayName("Update Project - 412 Precondition Failed (Unknown If-Match)")
+        void updateProject_BadIfMatch() throws Exception {
+                CreateProjectRequest request = new CreateProjectRequest();
+                request.setName("Updated Name");
+
+                mockMvc.perform(put("/api/projects/{projectId}", projectId)
+                                .with(csrf())
+                                .header("If-Match", "W/\"3\"")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isPreconditionFailed());
+        }
+
+        @Test
+        @DisplayName("Patch Project - Success (If-Match version passed, new ETag returned)")
+        void patchProject_Success() throws Exception {
+                Project patched = Project.builder().id(projectId).name("Patched").version(4L).build();
+                when(projectService.patchProject(eq(userId), eq(projectId), eq(Map.of("name", "Patched")), eq(3L)))
+                                .thenReturn(patched);
+
+                mockMvc.perform(patch("/api/projects/{projectId}", projectId)
+                                .with(csrf())
+                                .header("If-Match", "\"3\"")
+                                .contentType("application/merge-patch+json")
+                                .content("{\"name\":\"Patched\"}"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", "\"4\""))
+                                .andExpect(jsonPath("$.name").value("Patched"))
+                                .andExpect(jsonPath("$.version").value(4));
+        }
+
+        @Test
+        @DisplayName("Patch Project - 412 Precondition Failed (Stale version)")
+        void patchProject_StaleVersion() throws Exception {
+                when(projectService.patchProject(any(), any(), any(), eq(2L)))
+                                .thenThrow(new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                                                "Project has been modified"));
+
+                mockMvc.perform(patch("/api/projects/{projectId}", projectId)
+                                .with(csrf())
+                                .header("If-Match", "\"2\"")
+                                .contentType("application/merge-patch+json")
+                                .content("{\"color\":null}"))
+                                .andExpect(status().isPreconditionFailed());
+        }
+
         // ==================================================================================
         // 4. DELETE PROJECT DELETE /api/projects/{projectId}
         // ==================================================================================
@@ -213,6 +293,108 @@ class ProjectControllerTest {
                                 .andExpect(status().isNotFound());
         }
 
+        @Test
+        @DisplayName("Restore Project - Success")
+        void restoreProject_Success() throws Exception {
+                mockMvc.perform(post("/api/projects/{projectId}/restore", projectId)
+                                .with(csrf()))
+                                .andExpect(status().isNoContent());
+
+                verify(archiveService).restoreProject(userId, projectId);
+        }
+
+        @Test
+        @DisplayName("Restore Project - 409 when the parent is still deleted")
+        void restoreProject_ParentDeleted() throws Exception {
+                doThrow(new ResponseStatusException(HttpStatus.CONFLICT, "Restore the parent project first"))
+                                .when(archiveService).restoreProject(userId, projectId);
+
+                mockMvc.perform(post("/api/projects/{projectId}/restore", projectId)
+                                .with(csrf()))
+                                .andExpect(status().isConflict());
+        }
+
+        // ==================================================================================
+        // 3a. BULK CREATE POST /api/workspaces/{workspaceId}/projects/bulk
+        // ==================================================================================
+
+        @Test
+        @DisplayName("Bulk Create Projects - Success")
+        void createProjectTree_Success() throws Exception {
+                BulkCreateProjectsRequest.Node node = new BulkCreateProjectsRequest.Node();
+                node.setRef("a");
+                node.setName("Onboarding");
+                BulkCreateProjectsRequest request = new BulkCreateProjectsRequest();
+                request.setProjects(List.of(node));
+
+                UUID createdId = UUID.randomUUID();
+                when(projectService.createProjectTree(eq(userId), eq(workspaceId), eq(null), any()))
+                                .thenReturn(BulkCreateProjectsResponse.builder()
+                                                .projects(List.of(BulkCreateProjectsResponse.CreatedProject.builder()
+                                                                .ref("a").id(createdId).name("Onboarding").build()))
+                                                .build());
+
+                mockMvc.perform(post("/api/workspaces/{workspaceId}/projects/bulk", workspaceId)
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.projects[0].ref").value("a"))
+                                .andExpect(jsonPath("$.projects[0].id").value(createdId.toString()));
+        }
+
+        @Test
+        @DisplayName("Bulk Create Projects - 400 when empty")
+        void createProjectTree_EmptyRequest() throws Exception {
+                mockMvc.perform(post("/api/workspaces/{workspaceId}/projects/bulk", workspaceId)
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"projects\": []}"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        // ==================================================================================
+        // 4a. DUPLICATE PROJECT POST /api/projects/{projectId}/duplicate
+        // ==================================================================================
+
+        @Test
+        @DisplayName("Duplicate Project - Success")
+        void duplicateProject_Success() throws Exception {
+                UUID targetParentId = UUID.randomUUID();
+                UUID copyId = UUID.randomUUID();
+                DuplicateProjectRequest request = new DuplicateProjectRequest();
+                request.setTargetParentId(targetParentId);
+                request.setIncludeMembers(true);
+
+                Project copy = Project.builder().id(copyId).name("Template").parentId(targetParentId)
+                                .descendantCount(3).build();
+                when(projectService.duplicateProject(userId, projectId, targetParentId, null, true))
+                                .thenReturn(copy);
+
+                mockMvc.perform(post("/api/projects/{projectId}/duplicate", projectId)
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.id").value(copyId.toString()))
+                                .andExpect(jsonPath("$.role").value("OWNER"))
+                                .andExpect(jsonPath("$.descendantCount").value(3));
+        }
+
+        @Test
+        @DisplayName("Duplicate Project - 400 Bad Request (Name too long)")
+        void duplicateProject_ValidationFail() throws Exception {
+                DuplicateProjectRequest request = new DuplicateProjectRequest();
+                request.setName("x".repeat(256));
+
+                mockMvc.perform(post("/api/projects/{projectId}/duplicate", projectId)
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isBadRequest());
+                verify(projectService, never()).duplicateProject(any(), any(), any(), any(), anyBoolean());
+        }
+
         // ==================================================================================
         // 5. GET MEMBERS GET /api/projects/{projectId}/members
         // ==================================================================================
@@ -249,6 +431,48 @@ class ProjectControllerTest {
                 verify(projectService).addMember(eq(userId), eq(projectId), eq(request.getUserId()), eq("EDITOR"));
         }
 
+        @Test
+        @DisplayName("Add Member - Recursive grants across the subtree")
+        void addMember_Recursive() throws Exception {
+                AddProjectMemberRequest request = new AddProjectMemberRequest();
+                request.setUserId(UUID.randomUUID());
+                request.setRole("VIEWER");
+
+                mockMvc.perform(post("/api/projects/{projectId}/members", projectId)
+                                .param("recursive", "true")
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isOk());
+
+                verify(projectService).addMemberToSubtree(userId, projectId, request.getUserId(), "VIEWER");
+        }
+
+        @Test
+        @DisplayName("Add Members (Bulk) - Returns per-row statuses")
+        void addMembers_Bulk() throws Exception {
+                BulkAddProjectMembersRequest.Member member = new BulkAddProjectMembersRequest.Member();
+                member.setUserId(UUID.randomUUID());
+                member.setRole("EDITOR");
+                BulkAddProjectMembersRequest request = new BulkAddProjectMembersRequest();
+                request.setMembers(List.of(member));
+
+                BulkMembersResponse response = BulkMembersResponse.builder()
+                                .succeeded(1)
+                                .results(List.of(BulkMembersResponse.Result.builder()
+                                                .userId(member.getUserId()).role("EDITOR").status("ADDED").build()))
+                                .build();
+                when(projectService.addMembers(eq(userId), eq(projectId), any())).thenReturn(response);
+
+                mockMvc.perform(post("/api/projects/{projectId}/members/bulk", projectId)
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.succeeded").value(1))
+                                .andExpect(jsonPath("$.results[0].status").value("ADDED"));
+        }
+
         @Test
         @DisplayName("Add Member - 400 Bad Request (Missing UserID)")
         void addMember_ValidationFail() throws Exception {
@@ -0,0 +1,86 @@
+package com.fractal.backend.controller;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * What a duplicated subtree looks like in the database: counts, owners and the
+ * members a SNAPSHOT workspace hands down from the target parent.
+ */
+class ProjectDuplicationTest extends QueryBudgetTestSupport {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void duplicate_ShouldRecountCopyAndInheritTargetMembers() throws Exception {
+        Seed seed = seed(3);
+        // One deleted child is left behind, so the copy has 2 descendants, not the source's stale 3
+        jdbcTemplate.update("""
+                UPDATE projects SET deleted_at = NOW()
+                WHERE id = (SELECT id FROM projects WHERE parent_id = ? ORDER BY name LIMIT 1)
+                """, seed.rootProjectId());
+        UUID editorId = memberOf(seed);
+        UUID targetId = project(seed, "Target");
+        jdbcTemplate.update("INSERT INTO project_members (workspace_id, project_id, user_id, role) VALUES (?, ?, ?, 'EDITOR')",
+                seed.workspaceId(), targetId, editorId);
+
+        String body = mockMvc.perform(post("/api/projects/{projectId}/duplicate", seed.rootProjectId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"targetParentId\":\"" + targetId + "\",\"includeMembers\":false}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.descendantCount").value(2))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode copy = objectMapper.readTree(body);
+        UUID copyId = UUID.fromString(copy.get("id").asText());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT descendant_count FROM projects WHERE id = ?", Integer.class,
+                targetId)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForList("""
+                SELECT pm.role FROM project_members pm
+                JOIN project_hierarchy h ON h.descendant_id = pm.project_id AND h.ancestor_id = ?
+                WHERE pm.user_id = ?
+                """, String.class, copyId, editorId)).hasSize(3).containsOnly("EDITOR");
+        assertThat(jdbcTemplate.queryForObject("SELECT member_count FROM projects WHERE id = ?", Integer.class,
+                copyId)).isEqualTo(2);
+    }
+
+    @Test
+    void duplicate_ShouldForbidViewer() throws Exception {
+        Seed seed = seed(1);
+        authenticate(memberOf(seed)); // VIEWER on the root
+
+        mockMvc.perform(post("/api/projects/{projectId}/duplicate", seed.rootProjectId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"includeMembers\":true}"))
+                .andExpect(status().isForbidden());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM projects WHERE workspace_id = ?", Integer.class,
+                seed.workspaceId())).isEqualTo(2);
+    }
+
+    private UUID memberOf(Seed seed) {
+        return jdbcTemplate.queryForObject(
+                "SELECT user_id FROM workspace_members WHERE workspace_id = ? AND role = 'MEMBER' LIMIT 1",
+                UUID.class, seed.workspaceId());
+    }
+
+    private UUID project(Seed seed, String name) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO projects (id, workspace_id, name, created_by, member_count) VALUES (?, ?, ?, ?, 1)",
+                id, seed.workspaceId(), name, seed.ownerId());
+        jdbcTemplate.update("INSERT INTO project_hierarchy (workspace_id, ancestor_id, descendant_id, depth) VALUES (?, ?, ?, 0)",
+                seed.workspaceId(), id, id);
+        jdbcTemplate.update("INSERT INTO project_members (workspace_id, project_id, user_id, role) VALUES (?, ?, ?, 'OWNER')",
+                seed.workspaceId(), id, seed.ownerId());
+        return id;
+    }
+}
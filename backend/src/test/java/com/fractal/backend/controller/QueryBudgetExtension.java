@@ -0,0 +1,75 @@
+package com.fractal.backend.controller;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.fail;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+
+/**
+ * Fails a {@link MaxQueries} test when the measured request ran more statements
+ * than its budget. Tests get a {@link QueryRecorder} parameter and wrap the
+ * request in {@code measure}, so seeding is not counted.
+ */
+public class QueryBudgetExtension implements BeforeEachCallback, AfterTestExecutionCallback, ParameterResolver {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace
+            .create(QueryBudgetExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        recorder(context).reset();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        MaxQueries budget = context.getRequiredTestMethod().getAnnotation(MaxQueries.class);
+        if (budget == null || context.getExecutionException().isPresent()) {
+            return;
+        }
+        QueryRecorder recorder = recorder(context);
+        if (!recorder.isMeasured()) {
+            fail("@MaxQueries test " + context.getDisplayName() + " never called QueryRecorder.measure");
+        }
+        List<String> statements = recorder.statements();
+        if (statements.size() > budget.value()) {
+            fail("%s ran %d SQL statements, budget is %d:%n  %s".formatted(context.getDisplayName(),
+                    statements.size(), budget.value(), String.join(System.lineSeparator() + "  ", statements)));
+        }
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == QueryRecorder.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return recorder(extensionContext);
+    }
+
+    private static QueryRecorder recorder(ExtensionContext context) {
+        ApplicationContext applicationContext = SpringExtension.getApplicationContext(context);
+        return context.getRoot().getStore(NAMESPACE)
+                .computeIfAbsent(applicationContext, QueryBudgetExtension::attach, QueryRecorder.class);
+    }
+
+    private static QueryRecorder attach(ApplicationContext applicationContext) {
+        DataSource dataSource = applicationContext.getBean(DataSource.class);
+        if (!(dataSource instanceof ProxyDataSource proxy)) {
+            throw new IllegalStateException("Query budgets need the proxied DataSource from SqlObservabilityConfig");
+        }
+        QueryRecorder recorder = new QueryRecorder();
+        proxy.getProxyConfig().getQueryListener().addListener(recorder);
+        return recorder;
+    }
+}
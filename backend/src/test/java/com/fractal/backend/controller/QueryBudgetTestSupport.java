@@ -0,0 +1,119 @@
+package com.fractal.backend.controller;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import com.fractal.backend.model.User;
+
+/**
+ * Full application against a real Postgres, for statement budget tests.
+ * Each test seeds its own workspace of a given size, so budgets that hold for
+ * every size prove the endpoint's query count does not grow with N.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@ExtendWith(QueryBudgetExtension.class)
+abstract class QueryBudgetTestSupport {
+
+    // Started once and shared by every budget test class (and their cached context)
+    @ServiceConnection
+    static final PostgreSQLContainer postgres = new PostgreSQLContainer(DockerImageName.parse("postgres:16"));
+
+    static {
+        postgres.start();
+    }
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    /**
+     * owner: OWNER of {@code size} workspaces; the first one has {@code size}
+     * MEMBERs, a root project and {@code size} child projects. Every project is
+     * owned by owner and all members are VIEWERs on the root.
+     */
+    protected record Seed(UUID ownerId, UUID workspaceId, UUID rootProjectId) {
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    protected Seed seed(int size) {
+        UUID ownerId = UUID.randomUUID();
+        String tag = ownerId.toString();
+
+        jdbcTemplate.update("INSERT INTO users (id, email, full_name) VALUES (?, ?, 'Owner')",
+                ownerId, "owner-" + tag + "@example.com");
+        jdbcTemplate.update("""
+                INSERT INTO workspaces (owner_id, name, slug)
+                SELECT ?, 'Workspace ' || g, ? || '-' || g FROM generate_series(1, ?) g
+                """, ownerId, tag, size);
+        jdbcTemplate.update("""
+                INSERT INTO workspace_members (workspace_id, user_id, role)
+                SELECT id, owner_id, 'OWNER' FROM workspaces WHERE owner_id = ?
+                """, ownerId);
+        UUID workspaceId = jdbcTemplate.queryForObject("SELECT id FROM workspaces WHERE slug = ?", UUID.class,
+                tag + "-1");
+
+        jdbcTemplate.update("""
+                INSERT INTO users (email, full_name)
+                SELECT 'member-' || g || '-' || ? || '@example.com', 'Member ' || g FROM generate_series(1, ?) g
+                """, tag, size);
+        jdbcTemplate.update("""
+                INSERT INTO workspace_members (workspace_id, user_id, role)
+                SELECT ?, id, 'MEMBER' FROM users WHERE email LIKE ?
+                """, workspaceId, "member-%-" + tag + "@example.com");
+
+        UUID rootId = UUID.randomUUID();
+        jdbcTemplate.update("""
+                INSERT INTO projects (id, workspace_id, name, created_by, descendant_count)
+                VALUES (?, ?, 'Root', ?, ?)
+                """, rootId, workspaceId, ownerId, size);
+        jdbcTemplate.update("""
+                INSERT INTO projects (workspace_id, parent_id, name, created_by)
+                SELECT ?, ?, 'Child ' || g, ? FROM generate_series(1, ?) g
+                """, workspaceId, rootId, ownerId, size);
+        jdbcTemplate.update("""
+                INSERT INTO project_hierarchy (workspace_id, ancestor_id, descendant_id, depth)
+                SELECT workspace_id, id, id, 0 FROM projects WHERE workspace_id = ?
+                UNION ALL
+                SELECT workspace_id, parent_id, id, 1 FROM projects WHERE parent_id = ?
+                """, workspaceId, rootId);
+        jdbcTemplate.update("""
+                INSERT INTO project_members (workspace_id, project_id, user_id, role)
+                SELECT workspace_id, id, ?, 'OWNER' FROM projects WHERE workspace_id = ?
+                UNION ALL
+                SELECT workspace_id, ?, user_id, 'VIEWER' FROM workspace_members WHERE workspace_id = ? AND role = 'MEMBER'
+                """, ownerId, workspaceId, rootId, workspaceId);
+        jdbcTemplate.update("""
+                UPDATE projects p SET member_count = (SELECT COUNT(*) FROM project_members pm WHERE pm.project_id = p.id)
+                WHERE p.workspace_id = ?
+                """, workspaceId);
+
+        authenticate(ownerId);
+        return new Seed(ownerId, workspaceId, rootId);
+    }
+
+    protected void authenticate(UUID userId) {
+        User user = User.builder().id(userId).email("owner-" + userId + "@example.com").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, Collections.emptyList()));
+    }
+}
@@ -0,0 +1,58 @@
+package com.fractal.backend.controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+/**
+ * Collects the statements executed while {@link #measure} runs.
+ * Attached once per application context to the proxied DataSource.
+ */
+public class QueryRecorder implements QueryExecutionListener {
+
+    private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean recording;
+    private volatile boolean measured;
+
+    public <T> T measure(Callable<T> request) throws Exception {
+        statements.clear();
+        recording = true;
+        try {
+            return request.call();
+        } finally {
+            recording = false;
+            measured = true;
+        }
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (recording) {
+            // One entry per round trip; a JDBC batch counts once
+            statements.add(queryInfoList.get(0).getQuery());
+        }
+    }
+
+    void reset() {
+        statements.clear();
+        recording = false;
+        measured = false;
+    }
+
+    boolean isMeasured() {
+        return measured;
+    }
+
+    List<String> statements() {
+        return List.copyOf(statements);
+    }
+}
@@ -0,0 +1,60 @@
+package com.fractal.backend.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.MediaType;
+
+class WorkspaceControllerQueryBudgetTest extends QueryBudgetTestSupport {
+
+    @ParameterizedTest(name = "{0} workspaces")
+    @ValueSource(ints = { 1, 10, 60 })
+    @MaxQueries(1)
+    void getUserWorkspaces(int size, QueryRecorder queries) throws Exception {
+        seed(size);
+
+        queries.measure(() -> mockMvc.perform(get("/api/workspaces")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(size))
+                .andExpect(jsonPath("$[0].role").value("OWNER"));
+    }
+
+    @ParameterizedTest(name = "{0} members")
+    @ValueSource(ints = { 1, 10, 60 })
+    @MaxQueries(2)
+    void getWorkspaceMembers(int size, QueryRecorder queries) throws Exception {
+        Seed seed = seed(size);
+
+        queries.measure(() -> mockMvc.perform(get("/api/workspaces/{id}/members", seed.workspaceId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(size + 1));
+    }
+
+    @ParameterizedTest(name = "{0} members")
+    @ValueSource(ints = { 1, 10, 60 })
+    @MaxQueries(2)
+    void searchMembers(int size, QueryRecorder queries) throws Exception {
+        Seed seed = seed(size);
+
+        queries.measure(() -> mockMvc.perform(get("/api/workspaces/{id}/members/search", seed.workspaceId())
+                .param("q", "member")
+                .param("limit", "50")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(Math.min(size, 50)));
+    }
+
+    @ParameterizedTest(name = "{0} members")
+    @ValueSource(ints = { 1, 10, 60 })
+    @MaxQueries(3)
+    void updateWorkspace(int size, QueryRecorder queries) throws Exception {
+        Seed seed = seed(size);
+
+        queries.measure(() -> mockMvc.perform(put("/api/workspaces/{id}", seed.workspaceId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Renamed\"}")))
+                .andExpect(status().isOk());
+    }
+}
@@ -3,12 +3,15 @@ package com.fractal.backend.controller;
 import java.time.OffsetDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.verify;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
@@ -20,8 +23,10 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,16 +36,20 @@ import org.springframework.web.server.ResponseStatusException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fractal.backend.dto.CreateWorkspaceRequest;
+import com.fractal.backend.dto.HierarchyVerificationReport;
 import com.fractal.backend.dto.InviteMemberRequest;
 import com.fractal.backend.dto.TransferOwnershipRequest;
+import com.fractal.backend.dto.UpdateMemberInheritanceRequest;
 import com.fractal.backend.dto.UpdateMemberRoleRequest;
 import com.fractal.backend.dto.UpdateWorkspaceRequest;
+import com.fractal.backend.dto.WorkspaceAccessView;
 import com.fractal.backend.dto.WorkspaceMemberDTO;
-import com.fractal.backend.dto.WorkspaceResponse;
 import com.fractal.backend.model.User;
 import com.fractal.backend.model.Workspace;
 import com.fractal.backend.model.WorkspaceMember;
 import com.fractal.backend.security.JwtAuthenticationFilter;
+import com.fractal.backend.service.ArchiveService;
+import com.fractal.backend.service.HierarchyIntegrityService;
 import com.fractal.backend.service.WorkspaceService;
 
 @WebMvcTest(WorkspaceController.class)
@@ -55,6 +64,12 @@ class WorkspaceControllerTest {
         @MockitoBean
         private WorkspaceService workspaceService;
 
+        @MockitoBean
+        private HierarchyIntegrityService hierarchyIntegrityService;
+
+        @MockitoBean
+        private ArchiveService archiveService;
+
         @MockitoBean
         private JwtAuthenticationFilter jwtAuthenticationFilter;
 
@@ -100,12 +115,7 @@ class WorkspaceControllerTest {
                 UUID userId = UUID.randomUUID();
                 setupMockUser(userId);
 
-                WorkspaceResponse ws = WorkspaceResponse.builder()
-                                .id(UUID.randomUUID())
-                                .name("WS 1")
-                                .slug("ws-1")
-                                .role("OWNER")
-                                .build();
+                WorkspaceAccessView ws = new WorkspaceAccessView(UUID.randomUUID(), "WS 1", "ws-1", "OWNER", 0);
 
                 when(workspaceService.getWorkspacesForUser(userId))
                                 .thenReturn(List.of(ws));
@@ -129,7 +139,7 @@ class WorkspaceControllerTest {
                                 .build();
 
                 when(workspaceService.updateWorkspace(eq(userId), eq(workspaceId), eq("Updated Company"),
-                                eq("updated-company")))
+                                eq("updated-company"), isNull()))
                                 .thenReturn(updatedWorkspace);
 
                 UpdateWorkspaceRequest request = new UpdateWorkspaceRequest();
@@ -146,6 +156,32 @@ class WorkspaceControllerTest {
                                 .andExpect(jsonPath("$.role").value("UNKNOWN"));
         }
 
+        @Test
+        void patchWorkspace_ShouldPassIfMatchVersionAndReturnETag() throws Exception {
+                UUID userId = UUID.randomUUID();
+                UUID workspaceId = UUID.randomUUID();
+                setupMockUser(userId);
+
+                Workspace patched = Workspace.builder()
+                                .id(workspaceId)
+                                .name("Patched")
+                                .slug("acme")
+                                .version(8L)
+                                .build();
+                when(workspaceService.patchWorkspace(eq(userId), eq(workspaceId), eq(Map.of("name", "Patched")),
+                                eq(7L)))
+                                .thenReturn(patched);
+
+                mockMvc.perform(patch("/api/workspaces/" + workspaceId)
+                                .with(csrf())
+                                .header("If-Match", "\"7\"")
+                                .contentType("application/merge-patch+json")
+                                .content("{\"name\":\"Patched\"}"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", "\"8\""))
+                                .andExpect(jsonPath("$.name").value("Patched"));
+        }
+
         @Test
         void deleteWorkspace_ShouldReturnNoContent() throws Exception {
                 UUID userId = UUID.randomUUID();
@@ -291,7 +327,7 @@ class WorkspaceControllerTest {
                                 .build();
 
                 when(workspaceService.updateWorkspace(eq(ownerId), eq(workspaceId), eq("Updated Name"),
-                                eq("updated-slug")))
+                                eq("updated-slug"), isNull()))
                                 .thenReturn(updatedWorkspace);
 
                 UpdateWorkspaceRequest request = new UpdateWorkspaceRequest();
@@ -318,7 +354,7 @@ class WorkspaceControllerTest {
                                 .build();
 
                 when(workspaceService.updateWorkspace(eq(adminId), eq(workspaceId), eq("Updated Name"),
-                                eq("updated-slug")))
+                                eq("updated-slug"), isNull()))
                                 .thenReturn(updatedWorkspace);
 
                 UpdateWorkspaceRequest request = new UpdateWorkspaceRequest();
@@ -340,7 +376,7 @@ class WorkspaceControllerTest {
 
                 doThrow(new ResponseStatusException(HttpStatus.FORBIDDEN,
                                 "Insufficient permissions"))
-                                .when(workspaceService).updateWorkspace(eq(memberId), eq(workspaceId), any(), any());
+                                .when(workspaceService).updateWorkspace(eq(memberId), eq(workspaceId), any(), any(), any());
 
                 UpdateWorkspaceRequest request = new UpdateWorkspaceRequest();
                 request.setName("Updated Name");
@@ -737,4 +773,65 @@ class WorkspaceControllerTest {
                 mockMvc.perform(get("/api/workspaces/" + workspaceId + "/members"))
                                 .andExpect(status().isOk());
         }
-}
\ No newline at end of file
+
+        @Test
+        void verifyHierarchy_ShouldReturnReport() throws Exception {
+                UUID userId = UUID.randomUUID();
+                UUID workspaceId = UUID.randomUUID();
+                setupMockUser(userId);
+
+                HierarchyVerificationReport report = HierarchyVerificationReport.builder()
+                                .workspaceId(workspaceId)
+                                .projectsScanned(10)
+                                .missingRows(2)
+                                .repaired(true)
+                                .samples(List.of())
+                                .build();
+                when(hierarchyIntegrityService.verifyWorkspace(userId, workspaceId, true)).thenReturn(report);
+
+                mockMvc.perform(post("/api/workspaces/{id}/hierarchy/verify", workspaceId)
+                                .param("repair", "true")
+                                .with(csrf()))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.projectsScanned").value(10))
+                                .andExpect(jsonPath("$.missingRows").value(2))
+                                .andExpect(jsonPath("$.repaired").value(true));
+        }
+
+        @Test
+        void updateMemberInheritance_ShouldReturnOk() throws Exception {
+                UUID userId = UUID.randomUUID();
+                UUID workspaceId = UUID.randomUUID();
+                setupMockUser(userId);
+
+                UpdateMemberInheritanceRequest request = new UpdateMemberInheritanceRequest();
+                request.setMode("COMPUTED");
+
+                mockMvc.perform(put("/api/workspaces/" + workspaceId + "/member-inheritance")
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isOk());
+
+                verify(workspaceService).setMemberInheritance(userId, workspaceId, "COMPUTED");
+        }
+
+        @Test
+        void searchMembers_ShouldReturnMatches() throws Exception {
+                UUID userId = UUID.randomUUID();
+                UUID workspaceId = UUID.randomUUID();
+                setupMockUser(userId);
+
+                WorkspaceMemberDTO match = WorkspaceMemberDTO.builder()
+                                .id(UUID.randomUUID())
+                                .email("alice@fractal.com")
+                                .role("MEMBER")
+                                .build();
+                when(workspaceService.searchMembers(userId, workspaceId, "ali", 10)).thenReturn(List.of(match));
+
+                mockMvc.perform(get("/api/workspaces/{id}/members/search", workspaceId)
+                                .param("q", "ali"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].email").value("alice@fractal.com"));
+        }
+}
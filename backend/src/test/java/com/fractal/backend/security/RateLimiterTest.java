@@ -0,0 +1,154 @@
+package com.fractal.backend.security;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.fractal.backend.model.User;
+import com.fractal.backend.security.RateLimiter.EndpointClass;
+import com.fractal.backend.security.RateLimiter.Limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+class RateLimiterTest {
+
+    private static final Limit FIVE_PER_SECOND = new Limit(5, Duration.ofSeconds(1));
+    private static final long INTERVAL = Duration.ofMillis(200).toNanos();
+
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = limiter(100);
+    }
+
+    @Test
+    @DisplayName("A bucket should allow its capacity as a burst, then report the wait for the next token")
+    void burst_ShouldBeLimitedToCapacity() {
+        long now = 1_000_000_000L;
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.tryAcquire("u:w:READ", FIVE_PER_SECOND, now)).isZero();
+        }
+
+        assertThat(rateLimiter.tryAcquire("u:w:READ", FIVE_PER_SECOND, now)).isEqualTo(INTERVAL);
+        assertThat(rateLimiter.tryAcquire("u:w:READ", FIVE_PER_SECOND, now + INTERVAL)).isZero();
+    }
+
+    @Test
+    @DisplayName("A user's bucket should follow them across workspaces and endpoint classes stay apart")
+    void userBucket_ShouldSpanWorkspaces() {
+        assertThat(rateLimiter.tryAcquire("user-1", "ws", EndpointClass.INVITE)).isZero();
+        assertThat(rateLimiter.tryAcquire("user-1", "ws", EndpointClass.INVITE)).isPositive();
+        assertThat(rateLimiter.tryAcquire("user-1", "other-ws", EndpointClass.INVITE)).isPositive();
+        assertThat(rateLimiter.tryAcquire("user-1", null, EndpointClass.INVITE)).isPositive();
+
+        assertThat(rateLimiter.tryAcquire("user-2", "ws", EndpointClass.INVITE)).isZero();
+        assertThat(rateLimiter.tryAcquire("user-1", "ws", EndpointClass.READ)).isZero();
+    }
+
+    @Test
+    @DisplayName("A workspace's bucket should cap all of its users together and not charge the rejected user")
+    void workspaceBucket_ShouldLimitAllUsers() {
+        // Invites: 1 per user, 2 per workspace
+        assertThat(rateLimiter.tryAcquire("user-1", "ws", EndpointClass.INVITE)).isZero();
+        rateLimiter.chargeWorkspace("ws", EndpointClass.INVITE);
+        assertThat(rateLimiter.tryAcquire("user-2", "ws", EndpointClass.INVITE)).isZero();
+        rateLimiter.chargeWorkspace("ws", EndpointClass.INVITE);
+        assertThat(rateLimiter.tryAcquire("user-3", "ws", EndpointClass.INVITE)).isPositive();
+
+        // user-3's token was given back, so another workspace still works for them
+        assertThat(rateLimiter.tryAcquire("user-3", "other-ws", EndpointClass.INVITE)).isZero();
+    }
+
+    @Test
+    @DisplayName("Requests that were never charged to a workspace should neither drain nor create its bucket")
+    void workspaceBucket_UnchargedRequests_ShouldNotDrain() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.tryAcquire("outsider-" + i, "ws", EndpointClass.INVITE)).isZero();
+        }
+
+        // Only the five user buckets exist
+        assertThat(rateLimiter.size()).isEqualTo(5);
+        assertThat(rateLimiter.tryAcquire("member", "ws", EndpointClass.INVITE)).isZero();
+    }
+
+    @Test
+    @DisplayName("The filter should charge the workspace only when the request was authorized")
+    void filter_ShouldChargeWorkspaceOnlyWhenAuthorized() throws Exception {
+        String path = "/api/workspaces/0190f5c2-7d3a-7b1e-9a4f-2c6d8e0b1a35/invite";
+        RateLimitFilter filter = new RateLimitFilter(rateLimiter);
+        try {
+            // Two outsiders get 403; the workspace's two invites are still there
+            for (String outsider : List.of("outsider-1", "outsider-2")) {
+                authenticate(outsider);
+                filter.doFilter(new MockHttpServletRequest("POST", path), new MockHttpServletResponse(),
+                        (request, response) -> ((HttpServletResponse) response).setStatus(403));
+            }
+            for (String member : List.of("member-1", "member-2")) {
+                authenticate(member);
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                filter.doFilter(new MockHttpServletRequest("POST", path), response, new MockFilterChain());
+                assertThat(response.getStatus()).isEqualTo(200);
+            }
+
+            authenticate("member-3");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("POST", path), response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(429);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    @DisplayName("Buckets should stay within max-buckets")
+    void overflow_ShouldBoundBuckets() {
+        RateLimiter small = limiter(3);
+        long now = 1_000_000_000L;
+        for (int i = 0; i < 20; i++) {
+            small.tryAcquire("key-" + i, FIVE_PER_SECOND, now);
+        }
+
+        assertThat(small.size()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Requests should be classified as reads, writes or invites")
+    void classify_ShouldMapMethodAndPath() {
+        String workspaceId = "0190f5c2-7d3a-7b1e-9a4f-2c6d8e0b1a35";
+
+        assertThat(RateLimitFilter.classify("GET", "/api/workspaces/" + workspaceId + "/projects"))
+                .isEqualTo(EndpointClass.READ);
+        assertThat(RateLimitFilter.classify("PATCH", "/api/projects/" + workspaceId))
+                .isEqualTo(EndpointClass.WRITE);
+        assertThat(RateLimitFilter.classify("POST", "/api/workspaces/" + workspaceId + "/invite/bulk"))
+                .isEqualTo(EndpointClass.INVITE);
+        assertThat(RateLimitFilter.workspaceOf("/api/workspaces/" + workspaceId + "/invite"))
+                .isEqualTo(workspaceId);
+        assertThat(RateLimitFilter.workspaceOf("/api/projects/" + workspaceId)).isNull();
+    }
+
+    private static void authenticate(String name) {
+        User user = User.builder().id(UUID.nameUUIDFromBytes(name.getBytes())).email(name + "@example.com").build();
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    // Reads and writes: 5 per second; invites: 1 per hour; workspaces twice that
+    private static RateLimiter limiter(int maxBuckets) {
+        return new RateLimiter(true, maxBuckets, 5, Duration.ofSeconds(1), 5, Duration.ofSeconds(1), 1,
+                Duration.ofHours(1), 2, new SimpleMeterRegistry());
+    }
+}
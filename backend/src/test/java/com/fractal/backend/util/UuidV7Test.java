@@ -0,0 +1,35 @@
+package com.fractal.backend.util;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+class UuidV7Test {
+
+    @Test
+    void next_ShouldSetVersionAndVariant() {
+        UUID id = UuidV7.next();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void next_ShouldEncodeTimestampInLeadingBits() {
+        long millis = 1_700_000_000_000L;
+
+        UUID id = UuidV7.next(millis);
+
+        assertThat(id.getMostSignificantBits() >>> 16).isEqualTo(millis);
+    }
+
+    @Test
+    void next_ShouldSortByCreationTime() {
+        UUID earlier = UuidV7.next(1_700_000_000_000L);
+        UUID later = UuidV7.next(1_700_000_000_001L);
+
+        // Postgres compares uuid bytes unsigned, i.e. like the string form
+        assertThat(earlier.toString()).isLessThan(later.toString());
+    }
+}
@@ -0,0 +1,94 @@
+package com.fractal.repository;
+
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import org.mockito.Mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import com.fractal.backend.model.Workspace;
+import com.fractal.backend.model.WorkspaceMember;
+import com.fractal.backend.repository.ArchiveRepository;
+
+/**
+ * The workspace moves are plain JDBC, so the repository itself has to drop
+ * Hibernate's cached workspaces, memberships and workspace lists.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ArchiveRepositoryTest {
+
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+    @Mock
+    private SessionFactory sessionFactory;
+    @Mock
+    private Cache cache;
+
+    private ArchiveRepository archiveRepository;
+
+    @BeforeEach
+    void setUp() {
+        archiveRepository = new ArchiveRepository(dataSource, entityManagerFactory);
+        ReflectionTestUtils.setField(archiveRepository, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    @DisplayName("archiveWorkspace - Should evict the cached workspace only after commit")
+    void archiveWorkspace_ShouldEvictAfterCommit() {
+        UUID workspaceId = UUID.randomUUID();
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(1);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        TransactionSynchronizationManager.initSynchronization();
+
+        archiveRepository.archiveWorkspace(workspaceId);
+        verifyNoInteractions(cache);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(cache).evictEntityData(Workspace.class, workspaceId);
+        verify(cache).evictEntityData(WorkspaceMember.class);
+        verify(cache).evictQueryRegion("workspace-lists");
+    }
+
+    @Test
+    @DisplayName("unarchiveWorkspace - Should evict right away outside a transaction")
+    void unarchiveWorkspace_NoTransaction_ShouldEvictImmediately() {
+        UUID workspaceId = UUID.randomUUID();
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+
+        archiveRepository.unarchiveWorkspace(workspaceId);
+
+        verify(cache).evictEntityData(Workspace.class, workspaceId);
+        verify(cache).evictEntityData(WorkspaceMember.class);
+        verify(cache).evictQueryRegion("workspace-lists");
+    }
+}
@@ -0,0 +1,153 @@
+package com.fractal.repository;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * user_project_access is only written by triggers (V6, V11, V14). Each test
+ * changes the source tables with plain SQL and reads the access rows back in
+ * the same transaction.
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class UserProjectAccessTriggerTest {
+
+    private static final DockerImageName POSTGRES_IMAGE = DockerImageName.parse("postgres:16");
+
+    @Container
+    @ServiceConnection
+    private static final PostgreSQLContainer postgres = new PostgreSQLContainer(POSTGRES_IMAGE);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID ownerId;
+    private UUID userId;
+    private UUID workspaceId;
+    private UUID parentId;
+    private UUID childId;
+
+    @BeforeEach
+    void seed() {
+        ownerId = user("owner");
+        userId = user("member");
+        workspaceId = jdbcTemplate.queryForObject(
+                "INSERT INTO workspaces (owner_id, name, slug) VALUES (?, 'W', ?) RETURNING id", UUID.class,
+                ownerId, "w-" + ownerId);
+        parentId = project(null);
+        childId = project(parentId);
+    }
+
+    @Test
+    void insertAndDeleteMember_ShouldGrantAndRevokeAccess() {
+        grant(parentId, "EDITOR");
+        assertThat(role(parentId)).isEqualTo("EDITOR");
+        assertThat(role(childId)).isNull(); // SNAPSHOT: no inherited access
+
+        jdbcTemplate.update("DELETE FROM project_members WHERE project_id = ? AND user_id = ?", parentId, userId);
+        assertThat(role(parentId)).isNull();
+    }
+
+    @Test
+    void roleUpdate_ShouldFollowMember() {
+        grant(parentId, "EDITOR");
+
+        jdbcTemplate.update("UPDATE project_members SET role = 'VIEWER' WHERE project_id = ? AND user_id = ?",
+                parentId, userId);
+
+        assertThat(role(parentId)).isEqualTo("VIEWER");
+    }
+
+    @Test
+    void modeSwitch_ShouldResolveInheritedAccess() {
+        grant(parentId, "EDITOR");
+
+        jdbcTemplate.update("UPDATE workspaces SET member_inheritance = 'COMPUTED' WHERE id = ?", workspaceId);
+        assertThat(role(childId)).isEqualTo("EDITOR");
+
+        jdbcTemplate.update("UPDATE workspaces SET member_inheritance = 'SNAPSHOT' WHERE id = ?", workspaceId);
+        assertThat(role(childId)).isNull();
+    }
+
+    @Test
+    void moveProject_ShouldDropAccessInheritedFromOldParent() {
+        jdbcTemplate.update("UPDATE workspaces SET member_inheritance = 'COMPUTED' WHERE id = ?", workspaceId);
+        grant(parentId, "EDITOR");
+        assertThat(role(childId)).isEqualTo("EDITOR");
+
+        // Move child to the root: its path from the old parent goes away
+        jdbcTemplate.update("UPDATE projects SET parent_id = NULL WHERE id = ?", childId);
+        jdbcTemplate.update("DELETE FROM project_hierarchy WHERE descendant_id = ? AND depth > 0", childId);
+
+        assertThat(role(childId)).isNull();
+    }
+
+    @Test
+    void softDeleteAndRestore_ShouldHideAndShowProject() {
+        grant(childId, "VIEWER");
+
+        jdbcTemplate.update("UPDATE projects SET deleted_at = NOW() WHERE id = ?", childId);
+        assertThat(role(childId)).isNull();
+
+        jdbcTemplate.update("UPDATE projects SET deleted_at = NULL WHERE id = ?", childId);
+        assertThat(role(childId)).isEqualTo("VIEWER");
+    }
+
+    @Test
+    void updateTriggers_ShouldOnlyFireForTheirColumn() {
+        String projects = jdbcTemplate.queryForObject(
+                "SELECT pg_get_triggerdef(oid) FROM pg_trigger WHERE tgname = 'trg_projects_access_upd'", String.class);
+        String workspaces = jdbcTemplate.queryForObject(
+                "SELECT pg_get_triggerdef(oid) FROM pg_trigger WHERE tgname = 'trg_workspaces_access_upd'",
+                String.class);
+
+        assertThat(projects).contains("UPDATE OF deleted_at");
+        assertThat(workspaces).contains("UPDATE OF member_inheritance");
+
+        // A counter update leaves access alone
+        grant(childId, "VIEWER");
+        jdbcTemplate.update("UPDATE projects SET member_count = member_count + 1 WHERE id = ?", childId);
+        assertThat(role(childId)).isEqualTo("VIEWER");
+    }
+
+    private UUID user(String name) {
+        return jdbcTemplate.queryForObject("INSERT INTO users (email, full_name) VALUES (?, ?) RETURNING id",
+                UUID.class, name + "-" + UUID.randomUUID() + "@example.com", name);
+    }
+
+    private UUID project(UUID parent) {
+        UUID id = jdbcTemplate.queryForObject("""
+                INSERT INTO projects (workspace_id, parent_id, name, created_by) VALUES (?, ?, 'P', ?) RETURNING id
+                """, UUID.class, workspaceId, parent, ownerId);
+        jdbcTemplate.update("""
+                INSERT INTO project_hierarchy (workspace_id, ancestor_id, descendant_id, depth)
+                SELECT ?, ?, ?, 0
+                UNION ALL
+                SELECT workspace_id, ancestor_id, ?, depth + 1 FROM project_hierarchy WHERE descendant_id = ?
+                """, workspaceId, id, id, id, parent);
+        return id;
+    }
+
+    private void grant(UUID projectId, String role) {
+        jdbcTemplate.update("INSERT INTO project_members (workspace_id, project_id, user_id, role) VALUES (?, ?, ?, ?)",
+                workspaceId, projectId, userId, role);
+    }
+
+    private String role(UUID projectId) {
+        return jdbcTemplate.query("SELECT role FROM user_project_access WHERE project_id = ? AND user_id = ?",
+                rs -> rs.next() ? rs.getString(1) : null, projectId, userId);
+    }
+}
@@ -0,0 +1,171 @@
+package com.fractal.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fractal.backend.config.ShardDirectory;
+import com.fractal.backend.model.ProjectMember;
+import com.fractal.backend.model.WorkspaceMember;
+import com.fractal.backend.repository.ArchiveRepository;
+import com.fractal.backend.repository.ProjectMemberRepository;
+import com.fractal.backend.repository.ProjectRepository;
+import com.fractal.backend.repository.WorkspaceMemberRepository;
+import com.fractal.backend.repository.WorkspaceRepository;
+import com.fractal.backend.service.ArchiveService;
+
+@ExtendWith(MockitoExtension.class)
+class ArchiveServiceTest {
+
+    @Mock
+    private ArchiveRepository archiveRepository;
+    @Mock
+    private ProjectRepository projectRepository;
+    @Mock
+    private ProjectMemberRepository projectMemberRepository;
+    @Mock
+    private WorkspaceRepository workspaceRepository;
+    @Mock
+    private WorkspaceMemberRepository workspaceMemberRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private ObjectProvider<ShardDirectory> shardDirectory;
+
+    @InjectMocks
+    private ArchiveService archiveService;
+
+    // ==================================================================================
+    // ARCHIVE JOB
+    // ==================================================================================
+
+    @Test
+    @DisplayName("archiveExpired - Should move batches until empty, then archive emptied workspaces")
+    @SuppressWarnings("unchecked")
+    void archiveExpired_ShouldDrainBatchesThenArchiveWorkspace() {
+        ReflectionTestUtils.setField(archiveService, "retention", Duration.ofDays(30));
+        ReflectionTestUtils.setField(archiveService, "batchSize", 2);
+        ReflectionTestUtils.setField(archiveService, "batchPause", Duration.ZERO);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        UUID workspaceId = UUID.randomUUID();
+        when(archiveRepository.lockExpiredProjects(any(), eq(2)))
+                .thenReturn(List.of(a, b), List.of(c), List.of());
+        when(archiveRepository.archiveProjects(any())).thenReturn(2, 1);
+        when(archiveRepository.findExpiredWorkspaces(any(), eq(2))).thenReturn(List.of(workspaceId));
+        when(archiveRepository.lockWorkspaceProjects(workspaceId, 2)).thenReturn(List.of());
+        when(archiveRepository.archiveWorkspace(workspaceId)).thenReturn(true);
+
+        archiveService.archiveExpired();
+
+        verify(archiveRepository).archiveProjects(List.of(a, b));
+        verify(archiveRepository).archiveProjects(List.of(c));
+    }
+
+    // ==================================================================================
+    // RESTORE PROJECT
+    // ==================================================================================
+
+    @Test
+    @DisplayName("restoreProject - Archived subtree comes back before it is un-deleted")
+    void restoreProject_Archived_ShouldUnarchiveThenUndelete() {
+        UUID userId = UUID.randomUUID();
+        UUID workspaceId = UUID.randomUUID();
+        UUID projectId = UUID.randomUUID();
+        List<UUID> subtree = List.of(projectId, UUID.randomUUID());
+
+        when(archiveRepository.findArchivedProjectWorkspaceId(projectId)).thenReturn(Optional.of(workspaceId));
+        when(workspaceRepository.existsById(workspaceId)).thenReturn(true);
+        when(workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, userId))
+                .thenReturn(Optional.of(WorkspaceMember.builder().role("ADMIN").build()));
+        when(archiveRepository.findArchivedSubtreeIds(projectId)).thenReturn(subtree);
+        when(projectRepository.hasMissingOrDeletedParent(projectId)).thenReturn(false);
+        when(projectRepository.restoreDeletedSubtree(workspaceId, projectId)).thenReturn(2);
+
+        archiveService.restoreProject(userId, projectId);
+
+        verify(archiveRepository).unarchiveProjects(subtree);
+        verify(projectRepository).adjustAncestorDescendantCounts(workspaceId, projectId, 2);
+    }
+
+    @Test
+    @DisplayName("restoreProject - Should reject non-owners of the project")
+    void restoreProject_ShouldRejectEditor() {
+        UUID userId = UUID.randomUUID();
+        UUID workspaceId = UUID.randomUUID();
+        UUID projectId = UUID.randomUUID();
+
+        when(archiveRepository.findArchivedProjectWorkspaceId(projectId)).thenReturn(Optional.empty());
+        when(projectRepository.findWorkspaceIdIncludingDeleted(projectId)).thenReturn(Optional.of(workspaceId));
+        when(workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, userId))
+                .thenReturn(Optional.of(WorkspaceMember.builder().role("MEMBER").build()));
+        when(projectMemberRepository.findByWorkspaceIdAndProjectIdAndUserId(workspaceId, projectId, userId))
+                .thenReturn(Optional.of(ProjectMember.builder().role("EDITOR").build()));
+
+        var exception = assertThrows(ResponseStatusException.class,
+                () -> archiveService.restoreProject(userId, projectId));
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        verify(projectRepository, never()).restoreDeletedSubtree(any(), any());
+    }
+
+    @Test
+    @DisplayName("restoreProject - Should ask for the archived workspace to be restored first")
+    void restoreProject_WorkspaceArchived_ShouldConflict() {
+        UUID projectId = UUID.randomUUID();
+        UUID workspaceId = UUID.randomUUID();
+
+        when(archiveRepository.findArchivedProjectWorkspaceId(projectId)).thenReturn(Optional.of(workspaceId));
+        when(workspaceRepository.existsById(workspaceId)).thenReturn(false);
+
+        var exception = assertThrows(ResponseStatusException.class,
+                () -> archiveService.restoreProject(UUID.randomUUID(), projectId));
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        verify(archiveRepository, never()).unarchiveProjects(any());
+    }
+
+    // ==================================================================================
+    // RESTORE WORKSPACE
+    // ==================================================================================
+
+    @Test
+    @DisplayName("restoreWorkspace - Should not bring back an archived workspace whose slug was reused")
+    void restoreWorkspace_SlugTaken_ShouldConflict() {
+        UUID userId = UUID.randomUUID();
+        UUID workspaceId = UUID.randomUUID();
+
+        when(workspaceRepository.findById(workspaceId)).thenReturn(Optional.empty());
+        when(archiveRepository.existsArchivedWorkspace(workspaceId)).thenReturn(true);
+        when(archiveRepository.findArchivedWorkspaceRole(workspaceId, userId)).thenReturn(Optional.of("OWNER"));
+        when(archiveRepository.isArchivedSlugTaken(workspaceId)).thenReturn(true);
+
+        var exception = assertThrows(ResponseStatusException.class,
+                () -> archiveService.restoreWorkspace(userId, workspaceId));
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        verify(archiveRepository, never()).unarchiveWorkspace(any());
+    }
+}
@@ -1,5 +1,6 @@
 package com.fractal.service;
 
+import com.fractal.backend.config.ShardDirectory;
 import com.fractal.backend.dto.LoginResponse;
 import com.fractal.backend.model.User;
 import com.fractal.backend.repository.UserRepository;
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 
 import java.util.Optional;
 
@@ -25,6 +27,9 @@ class AuthServiceTest {
     @Mock
     private com.fractal.backend.repository.WorkspaceMemberRepository workspaceMemberRepository;
 
+    @Mock
+    private ObjectProvider<ShardDirectory> shardDirectory;
+
     @InjectMocks
     private AuthService authService;
 
@@ -0,0 +1,116 @@
+package com.fractal.service;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fractal.backend.dto.HierarchyVerificationReport;
+import com.fractal.backend.model.WorkspaceMember;
+import com.fractal.backend.repository.ProjectBatchRepository;
+import com.fractal.backend.repository.WorkspaceMemberRepository;
+import com.fractal.backend.service.HierarchyIntegrityService;
+
+@ExtendWith(MockitoExtension.class)
+class HierarchyIntegrityServiceTest {
+
+    @Mock
+    private ProjectBatchRepository projectBatchRepository;
+    @Mock
+    private WorkspaceMemberRepository workspaceMemberRepository;
+
+    @InjectMocks
+    private HierarchyIntegrityService hierarchyIntegrityService;
+
+    @Test
+    @DisplayName("verifyWorkspace - Should reject plain workspace members")
+    void verifyWorkspace_ShouldRejectMembers() {
+        UUID userId = UUID.randomUUID();
+        UUID workspaceId = UUID.randomUUID();
+        when(workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, userId))
+                .thenReturn(Optional.of(WorkspaceMember.builder().role("MEMBER").build()));
+
+        var exception = assertThrows(ResponseStatusException.class,
+                () -> hierarchyIntegrityService.verifyWorkspace(userId, workspaceId, false));
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    @DisplayName("verifyWorkspace - Should detect and repair missing and extra closure rows")
+    @SuppressWarnings("unchecked")
+    void verifyWorkspace_ShouldRepairDifferences() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID workspaceId = UUID.randomUUID();
+        UUID root = UUID.randomUUID();
+        UUID child = UUID.randomUUID();
+        UUID stray = UUID.randomUUID();
+
+        when(workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, userId))
+                .thenReturn(Optional.of(WorkspaceMember.builder().role("OWNER").build()));
+
+        // root <- child
+        doAnswer(rows(new String[] { "id", "parent_id" },
+                new Object[][] { { root, null }, { child, root } }))
+                .when(projectBatchRepository).streamParentLinks(eq(workspaceId), any());
+        // child is missing its root -> child path and has a stray ancestor
+        doAnswer(rows(new String[] { "descendant_id", "ancestor_id", "depth" },
+                new Object[][] { { root, root, 0 }, { child, child, 0 }, { child, stray, 1 } }))
+                .when(projectBatchRepository).streamClosureRows(eq(workspaceId), any());
+
+        HierarchyVerificationReport report = hierarchyIntegrityService.verifyWorkspace(userId, workspaceId, true);
+
+        assertThat(report.getProjectsScanned()).isEqualTo(2);
+        assertThat(report.getMissingRows()).isEqualTo(1);
+        assertThat(report.getExtraRows()).isEqualTo(1);
+        assertThat(report.isRepaired()).isTrue();
+
+        ArgumentCaptor<List<Object[]>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(projectBatchRepository).insertHierarchyRows(eq(workspaceId), inserted.capture());
+        assertThat(inserted.getValue()).hasSize(1);
+        assertThat(inserted.getValue().get(0)).containsExactly(root, child, 1);
+        verify(projectBatchRepository).deleteHierarchyRows(eq(workspaceId), any());
+        verify(projectBatchRepository, never()).updateHierarchyDepths(any(), any());
+        verify(projectBatchRepository).refreshDescendantCounts(workspaceId);
+    }
+
+    // Replays rows into the RowCallbackHandler passed to a streaming repository method
+    private Answer<Void> rows(String[] columns, Object[][] rows) {
+        return invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                for (int i = 0; i < columns.length; i++) {
+                    Object value = row[i];
+                    if (value instanceof UUID || value == null) {
+                        when(rs.getObject(columns[i], UUID.class)).thenReturn((UUID) value);
+                    } else {
+                        when(rs.getObject(columns[i])).thenReturn(value);
+                    }
+                }
+                handler.processRow(rs);
+            }
+            return null;
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package com.fractal.service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fractal.backend.dto.WorkspaceMemberDTO;
+import com.fractal.backend.service.MemberSearchCache;
+
+class MemberSearchCacheTest {
+
+    private final MemberSearchCache cache = new MemberSearchCache();
+    private final UUID workspaceId = UUID.randomUUID();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void invalidate_ShouldWaitForCommitInsideTransaction() {
+        search();
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidate(workspaceId);
+        search(); // Before commit: still the cached entry
+        assertThat(loads).hasValue(1);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        search();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void invalidate_ShouldNotEvictWhenTransactionRollsBack() {
+        search();
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidate(workspaceId);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        search();
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void invalidate_ShouldEvictImmediatelyWithoutTransaction() {
+        search();
+
+        cache.invalidate(workspaceId);
+        search();
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private void search() {
+        cache.get(workspaceId, "al", 10, () -> {
+            loads.incrementAndGet();
+            return List.of(WorkspaceMemberDTO.builder().email("alice@fractal.com").build());
+        });
+    }
+}
@@ -0,0 +1,189 @@
+package com.fractal.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fractal.backend.config.ReadYourWritesTracker;
+import com.fractal.backend.model.User;
+import com.fractal.backend.service.ReadCoalescer;
+
+class ReadCoalescerTest {
+
+    private final ReadYourWritesTracker readYourWrites = new ReadYourWritesTracker(Duration.ofSeconds(5));
+    private final ReadCoalescer coalescer = new ReadCoalescer(
+            new StaticListableBeanFactory().getBeanProvider(PlatformTransactionManager.class),
+            new StaticListableBeanFactory(Map.of("readYourWritesTracker", readYourWrites))
+                    .getBeanProvider(ReadYourWritesTracker.class));
+    private final UUID workspaceId = UUID.randomUUID();
+    private final AtomicInteger executions = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    @DisplayName("Callers arriving while a read runs should share its execution and result")
+    void concurrentReads_ShouldShareOneExecution() throws Exception {
+        AtomicReference<List<String>> leaderResult = new AtomicReference<>();
+        AtomicReference<List<String>> followerResult = new AtomicReference<>();
+
+        Thread leader = start(() -> leaderResult.set(coalescer.coalesce("list", workspaceId, null, this::slowRead)));
+        awaitExecutions(1);
+        Thread follower = start(() -> followerResult.set(coalescer.coalesce("list", workspaceId, null, this::slowRead)));
+        awaitWaiting(follower);
+
+        release.countDown();
+        leader.join(5000);
+        follower.join(5000);
+
+        assertThat(executions).hasValue(1);
+        assertThat(followerResult.get()).isSameAs(leaderResult.get());
+        assertThrows(UnsupportedOperationException.class, () -> followerResult.get().add("changed"));
+    }
+
+    @Test
+    @DisplayName("The leader should run its read in a read-only transaction of its own")
+    void read_ShouldRunInReadOnlyTransaction() {
+        PlatformTransactionManager manager = mock(PlatformTransactionManager.class);
+        when(manager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        ReadCoalescer transactional = new ReadCoalescer(
+                new StaticListableBeanFactory(Map.of("transactionManager", manager))
+                        .getBeanProvider(PlatformTransactionManager.class),
+                new StaticListableBeanFactory().getBeanProvider(ReadYourWritesTracker.class));
+
+        List<String> rows = new ArrayList<>(List.of("a"));
+        assertThat(transactional.coalesce("list", workspaceId, null, () -> rows)).containsExactly("a");
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(manager).getTransaction(definition.capture());
+        assertThat(definition.getValue().isReadOnly()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Calling from inside a transaction should fail instead of holding a connection while waiting")
+    void insideTransaction_ShouldBeRejected() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThrows(IllegalStateException.class,
+                    () -> coalescer.coalesce("list", workspaceId, null, () -> List.of("a")));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    @Test
+    @DisplayName("A read starting after a committed write should not join a read that started before it")
+    void readAfterCommit_ShouldStartItsOwnExecution() throws Exception {
+        Thread leader = start(() -> coalescer.coalesce("list", workspaceId, null, this::slowRead));
+        awaitExecutions(1);
+
+        TransactionExecution write = mock(TransactionExecution.class);
+        when(write.isReadOnly()).thenReturn(false);
+        coalescer.afterCommit(write, null);
+
+        List<String> fresh = coalescer.coalesce("list", workspaceId, null, () -> {
+            executions.incrementAndGet();
+            return List.of("fresh");
+        });
+
+        release.countDown();
+        leader.join(5000);
+        assertThat(fresh).containsExactly("fresh");
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("A caller pinned to the primary should not join a leader whose read may go to a replica")
+    void pinnedCaller_ShouldNotJoinUnpinnedLeader() throws Exception {
+        User writer = User.builder().id(UUID.randomUUID()).email("writer@example.com").build();
+        readYourWrites.recordWrite(writer.getId());
+        Thread leader = start(() -> coalescer.coalesce("list", workspaceId, null, this::slowRead));
+        awaitExecutions(1);
+
+        AtomicReference<List<String>> pinned = new AtomicReference<>();
+        Thread follower = start(() -> {
+            SecurityContextHolder.getContext()
+                    .setAuthentication(new UsernamePasswordAuthenticationToken(writer, null, List.of()));
+            pinned.set(coalescer.coalesce("list", workspaceId, null, () -> {
+                executions.incrementAndGet();
+                return List.of("primary");
+            }));
+        });
+        follower.join(5000);
+
+        release.countDown();
+        leader.join(5000);
+        assertThat(pinned.get()).containsExactly("primary");
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Different scopes should not share a read, and a failed read should not be reused")
+    void scopesAndFailures_ShouldNotShare() {
+        ResponseStatusException forbidden = new ResponseStatusException(HttpStatus.FORBIDDEN);
+
+        assertThrows(ResponseStatusException.class,
+                () -> coalescer.coalesce("list", workspaceId, "user-1", () -> {
+                    throw forbidden;
+                }));
+
+        assertThat(coalescer.coalesce("list", workspaceId, "user-1", () -> List.of("a"))).containsExactly("a");
+        assertThat(coalescer.coalesce("list", workspaceId, "user-2", () -> List.of("b"))).containsExactly("b");
+    }
+
+    private List<String> slowRead() {
+        executions.incrementAndGet();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return List.of("row");
+    }
+
+    private void awaitExecutions(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executions.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    // Parked either on the leader's result or, if it wrongly ran its own read, on the latch
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING
+                && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static Thread start(Runnable work) {
+        Thread thread = new Thread(work);
+        thread.start();
+        return thread;
+    }
+}
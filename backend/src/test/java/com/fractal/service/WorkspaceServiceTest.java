@@ -1,26 +1,55 @@
 package com.fractal.service;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
 
+import com.fractal.backend.config.ReadYourWritesTracker;
+import com.fractal.backend.config.ShardDirectory;
+import com.fractal.backend.dto.BulkInviteMembersRequest;
+import com.fractal.backend.dto.BulkMembersResponse;
+import com.fractal.backend.dto.WorkspaceMemberDTO;
 import com.fractal.backend.model.User;
 import com.fractal.backend.model.Workspace;
 import com.fractal.backend.model.WorkspaceMember;
+import com.fractal.backend.repository.ListingRepository;
+import com.fractal.backend.repository.ProjectMemberRepository;
+import com.fractal.backend.repository.UserRepository;
+import com.fractal.backend.repository.WorkspaceBatchRepository;
+import com.fractal.backend.repository.WorkspaceInvitationRepository;
 import com.fractal.backend.repository.WorkspaceMemberRepository;
 import com.fractal.backend.repository.WorkspaceRepository;
+import com.fractal.backend.service.InvitationsCreatedEvent;
+import com.fractal.backend.service.MemberSearchCache;
+import com.fractal.backend.service.ReadCoalescer;
 import com.fractal.backend.service.WorkspaceService;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +61,35 @@ class WorkspaceServiceTest {
     @Mock
     private WorkspaceMemberRepository workspaceMemberRepository;
 
+    @Mock
+    private ProjectMemberRepository projectMemberRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private WorkspaceInvitationRepository workspaceInvitationRepository;
+
+    @Mock
+    private WorkspaceBatchRepository workspaceBatchRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    @Mock
+    private ObjectProvider<ShardDirectory> shardDirectory;
+
+    @Spy
+    private MemberSearchCache memberSearchCache = new MemberSearchCache();
+
+    @Spy
+    private ReadCoalescer readCoalescer = new ReadCoalescer(
+            new StaticListableBeanFactory().getBeanProvider(PlatformTransactionManager.class),
+            new StaticListableBeanFactory().getBeanProvider(ReadYourWritesTracker.class));
+
     @InjectMocks
     private WorkspaceService workspaceService;
 
@@ -72,6 +130,31 @@ class WorkspaceServiceTest {
         assertThat(member.getRole()).isEqualTo("OWNER");
     }
 
+    @Test
+    void createWorkspace_Sharded_ShouldAvoidSlugsOnOtherShardsAndRegister() {
+        // Arrange
+        ShardDirectory directory = mock(ShardDirectory.class);
+        when(shardDirectory.getIfAvailable()).thenReturn(directory);
+        doAnswer(i -> {
+            i.<Consumer<ShardDirectory>>getArgument(0).accept(directory);
+            return null;
+        }).when(shardDirectory).ifAvailable(any());
+        when(workspaceRepository.existsBySlug(anyString())).thenReturn(false);
+        when(directory.isSlugTaken(anyString())).thenReturn(true, false); // Taken on another shard
+        when(workspaceRepository.save(any(Workspace.class))).thenAnswer(i -> {
+            Workspace w = i.getArgument(0);
+            w.setId(UUID.randomUUID());
+            return w;
+        });
+
+        // Act
+        Workspace createdWorkspace = workspaceService.createWorkspace(UUID.randomUUID(), "Fractal Inc");
+
+        // Assert
+        assertThat(createdWorkspace.getSlug()).isEqualTo("fractal-inc-1");
+        verify(directory).register(createdWorkspace.getId(), "fractal-inc-1");
+    }
+
     @Test
     void removeMember_OwnerRemovesMember_ShouldSucceed() {
         // Arrange
@@ -126,4 +209,154 @@ class WorkspaceServiceTest {
 
         verify(workspaceMemberRepository, never()).delete(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void setMemberInheritance_ShouldCompactRowsWhenSwitchingToComputed() {
+        // Arrange
+        UUID ownerId = UUID.randomUUID();
+        UUID workspaceId = UUID.randomUUID();
+        Workspace workspace = Workspace.builder().id(workspaceId).memberInheritance("SNAPSHOT").build();
+
+        when(workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, ownerId))
+                .thenReturn(Optional.of(WorkspaceMember.builder().role("OWNER").build()));
+        when(workspaceRepository.findById(workspaceId)).thenReturn(Optional.of(workspace));
+        when(workspaceRepository.save(any(Workspace.class))).thenAnswer(i -> i.getArgument(0));
+
+        // Act
+        Workspace updated = workspaceService.setMemberInheritance(ownerId, workspaceId, "computed");
+
+        // Assert
+        assertThat(updated.getMemberInheritance()).isEqualTo("COMPUTED");
+        verify(projectMemberRepository).deleteRedundantInheritedMembers(workspaceId);
+        verify(projectMemberRepository, never()).materializeInheritedMembers(any());
+        verify(projectMemberRepository).refreshMemberCounts(workspaceId);
+    }
+
+    @Test
+    void setMemberInheritance_ShouldRejectComputedWhenChildExcludesParentMember() {
+        // Arrange
+        UUID ownerId = UUID.randomUUID();
+        UUID workspaceId = UUID.randomUUID();
+        Workspace workspace = Workspace.builder().id(workspaceId).memberInheritance("SNAPSHOT").build();
+
+        when(workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, ownerId))
+                .thenReturn(Optional.of(WorkspaceMember.builder().role("OWNER").build()));
+        when(workspaceRepository.findById(workspaceId)).thenReturn(Optional.of(workspace));
+        when(projectMemberRepository.existsParentGrantMissingOnChild(workspaceId)).thenReturn(true);
+
+        // Act & Assert
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> workspaceService.setMemberInheritance(ownerId, workspaceId, "COMPUTED"));
+        assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        verify(projectMemberRepository, never()).deleteRedundantInheritedMembers(any());
+        verify(workspaceRepository, never()).save(any(Workspace.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void inviteMembers_ShouldBatchInvitationsAndSkipExistingMembers() {
+        // Arrange
+        UUID adminId = UUID.randomUUID();
+        UUID workspaceId = UUID.randomUUID();
+        UUID memberId = UUID.randomUUID();
+
+        when(workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, adminId))
+                .thenReturn(Optional.of(WorkspaceMember.builder().role("ADMIN").build()));
+        when(workspaceRepository.findById(workspaceId))
+                .thenReturn(Optional.of(Workspace.builder().id(workspaceId).name("Fractal").build()));
+        User member = new User();
+        member.setId(memberId);
+        member.setEmail("Member@Fractal.com");
+        when(userRepository.findAllByLowerEmailIn(any())).thenReturn(List.of(member));
+        when(workspaceMemberRepository.findAllByWorkspaceIdAndUserIdIn(any(), any()))
+                .thenReturn(List.of(WorkspaceMember.builder().workspaceId(workspaceId).userId(memberId).build()));
+
+        // Act
+        BulkMembersResponse response = workspaceService.inviteMembers(adminId, workspaceId, List.of(
+                invite("New@Fractal.com ", "MEMBER"),
+                invite("member@fractal.com", "MEMBER"),
+                invite("boss@fractal.com", "ADMIN"),
+                invite("not-an-email", "MEMBER"),
+                invite("new@fractal.com", "MEMBER")));
+
+        // Assert
+        assertThat(response.getResults()).extracting(BulkMembersResponse.Result::getStatus)
+                .containsExactly("INVITED", "ALREADY_MEMBER", "FORBIDDEN_ROLE", "INVALID_EMAIL", "DUPLICATE");
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(workspaceBatchRepository).insertInvitations(rows.capture());
+        assertThat(rows.getValue()).hasSize(1);
+        // Mail goes out after commit, from the event listener
+        ArgumentCaptor<InvitationsCreatedEvent> event = ArgumentCaptor.forClass(InvitationsCreatedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().workspaceName()).isEqualTo("Fractal");
+        assertThat(event.getValue().tokensByEmail()).containsOnlyKeys("new@fractal.com");
+    }
+
+    @Test
+    void inviteMember_ShouldMailAfterCommitThroughEvent() {
+        // Arrange
+        UUID adminId = UUID.randomUUID();
+        UUID workspaceId = UUID.randomUUID();
+        when(workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, adminId))
+                .thenReturn(Optional.of(WorkspaceMember.builder().role("ADMIN").build()));
+        when(workspaceRepository.findById(workspaceId))
+                .thenReturn(Optional.of(Workspace.builder().id(workspaceId).name("Fractal").build()));
+
+        // Act
+        workspaceService.inviteMember(adminId, workspaceId, "new@fractal.com", "MEMBER");
+
+        // Assert
+        verify(workspaceInvitationRepository).save(any());
+        ArgumentCaptor<InvitationsCreatedEvent> event = ArgumentCaptor.forClass(InvitationsCreatedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().workspaceName()).isEqualTo("Fractal");
+        assertThat(event.getValue().tokensByEmail()).containsOnlyKeys("new@fractal.com");
+    }
+
+    private BulkInviteMembersRequest.Invite invite(String email, String role) {
+        BulkInviteMembersRequest.Invite invite = new BulkInviteMembersRequest.Invite();
+        invite.setEmail(email);
+        invite.setRole(role);
+        return invite;
+    }
+
+    @Test
+    void searchMembers_ShouldServeShortPrefixesFromCache() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        UUID workspaceId = UUID.randomUUID();
+        WorkspaceMemberDTO alice = WorkspaceMemberDTO.builder().email("alice@fractal.com").build();
+
+        when(workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, userId))
+                .thenReturn(Optional.of(WorkspaceMember.builder().role("MEMBER").build()));
+        when(workspaceMemberRepository.searchMembers(eq(workspaceId), eq("al%"), eq("al"), any(Limit.class)))
+                .thenReturn(List.of(alice));
+
+        // Act
+        List<WorkspaceMemberDTO> first = workspaceService.searchMembers(userId, workspaceId, "Al", 10);
+        List<WorkspaceMemberDTO> second = workspaceService.searchMembers(userId, workspaceId, "al", 10);
+
+        // Assert
+        assertThat(first).containsExactly(alice);
+        assertThat(second).containsExactly(alice);
+        verify(workspaceMemberRepository, times(1)).searchMembers(any(), any(), any(), any(Limit.class));
+    }
+
+    @Test
+    void searchMembers_ShouldUseSubstringMatchForLongerQueries() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        UUID workspaceId = UUID.randomUUID();
+
+        when(workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, userId))
+                .thenReturn(Optional.of(WorkspaceMember.builder().role("MEMBER").build()));
+        when(workspaceMemberRepository.searchMembers(eq(workspaceId), eq("%ali\\_%"), eq("ali_"), any(Limit.class)))
+                .thenReturn(List.of());
+
+        // Act
+        workspaceService.searchMembers(userId, workspaceId, "ali_", 500);
+
+        // Assert
+        verify(memberSearchCache, never()).get(any(), any(), anyInt(), any());
+    }
+}